@@ -0,0 +1,166 @@
+package com.devtec.sai.carga;
+
+import com.devtec.sai.SaiApplication;
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.AgendamentosRequestDTO;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.repository.AgendamentosRepository;
+import com.devtec.sai.service.AgendamentoService;
+import com.devtec.sai.service.IndiceFilaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Caminho real do chamar-próximo (UPDATE ... FOR UPDATE SKIP LOCKED + intercalação + índice em memória)
+// com vários guichês chamando ao mesmo tempo, para cada tamanho de fila: vazão, latência e a proporção
+// de preferenciais efetivamente chamados.
+//   ./mvnw -Pcarga -DskipTests verify -Dcarga.classe=com.devtec.sai.carga.ChamarProximoCarga -Dcarga.args="fila=1000,50000 guiches=1,8,32"
+// Parâmetros: fila=1000,50000, guiches=1,8,32, chamadas=2000, preferenciais=20 (% da fila),
+// banco=jdbc:postgresql://... (banco-usuario, banco-senha; será limpo!), resultado=arquivo.json
+public class ChamarProximoCarga {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            int separador = arg.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException("Parâmetro inválido (esperado chave=valor): " + arg);
+            }
+            valores.put(arg.substring(0, separador), arg.substring(separador + 1));
+        }
+        List<Integer> filas = inteiros(valores.getOrDefault("fila", "1000,50000"));
+        List<Integer> guiches = inteiros(valores.getOrDefault("guiches", "1,8,32"));
+        int chamadas = Integer.parseInt(valores.getOrDefault("chamadas", "2000"));
+        int preferenciais = Integer.parseInt(valores.getOrDefault("preferenciais", "20"));
+        Path resultado = Path.of(valores.getOrDefault("resultado", "chamar-proximo-resultado.json"));
+
+        EmbeddedPostgres postgres = null;
+        String url = valores.get("banco");
+        String usuario = valores.getOrDefault("banco-usuario", "postgres");
+        String senha = valores.getOrDefault("banco-senha", "postgres");
+        if (url == null) {
+            postgres = EmbeddedPostgres.builder().start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        try (ConfigurableApplicationContext contexto = new SpringApplication(SaiApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + usuario,
+                "--spring.datasource.password=" + senha,
+                "--JWT_SECRET=" + UUID.randomUUID(),
+                "--logging.level.root=WARN",
+                "--logging.level.com.devtec.sai=WARN")) {
+
+            AgendamentoService agendamentoService = contexto.getBean(AgendamentoService.class);
+            AgendamentosRepository repository = contexto.getBean(AgendamentosRepository.class);
+            IndiceFilaService indiceFila = contexto.getBean(IndiceFilaService.class);
+
+            System.out.printf("%8s %8s %9s %10s %9s %9s %9s %9s%n",
+                    "fila", "guichês", "chamadas", "chamadas/s", "p50 ms", "p99 ms", "máx ms", "% pref");
+
+            List<Map<String, Object>> etapas = new ArrayList<>();
+            for (int fila : filas) {
+                for (int quantidade : guiches) {
+                    repository.deleteAllInBatch();
+                    indiceFila.limpar();
+                    preencher(agendamentoService, fila, preferenciais);
+                    etapas.add(medir(agendamentoService, fila, quantidade, Math.min(chamadas, fila)));
+                }
+            }
+
+            Map<String, Object> saida = new LinkedHashMap<>();
+            saida.put("chamadas", chamadas);
+            saida.put("preferenciais", preferenciais);
+            saida.put("etapas", etapas);
+            new ObjectMapper()
+                    .enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(resultado.toFile(), saida);
+            System.out.println("Resultado gravado em " + resultado);
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static void preencher(AgendamentoService agendamentoService, int fila, int preferenciais) {
+        List<AgendamentosRequestDTO> lote = new ArrayList<>();
+        for (int i = 0; i < fila; i++) {
+            PrioridadeAtendimento prioridade = i % 100 < preferenciais ? PrioridadeAtendimento.IDOSO : PrioridadeAtendimento.NORMAL;
+            lote.add(new AgendamentosRequestDTO("Cidadão " + i, "52998224725", "123456", "RG", prioridade));
+            if (lote.size() == 1000 || i == fila - 1) {
+                agendamentoService.criarEmLote(lote);
+                lote.clear();
+            }
+        }
+    }
+
+    private static Map<String, Object> medir(AgendamentoService agendamentoService, int fila, int guiches,
+                                             int chamadas) throws InterruptedException {
+        // Microssegundos, de 1 µs a 1 min, 3 dígitos significativos
+        Recorder latencias = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+        AtomicInteger restantes = new AtomicInteger(chamadas);
+        LongAdder preferenciaisChamados = new LongAdder();
+
+        long inicio = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int g = 0; g < guiches; g++) {
+                executor.submit(() -> {
+                    while (restantes.getAndDecrement() > 0) {
+                        long antes = System.nanoTime();
+                        Optional<AgendamentoResponseDTO> chamado = agendamentoService.chamarProximo(null);
+                        latencias.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - antes),
+                                TimeUnit.MINUTES.toMicros(1)));
+                        if (chamado.isPresent() && chamado.get().prioridade().preferencial()) {
+                            preferenciaisChamados.increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        Histogram histograma = latencias.getIntervalHistogram();
+        double percentualPreferencial = 100.0 * preferenciaisChamados.sum() / chamadas;
+
+        Map<String, Object> etapa = new LinkedHashMap<>();
+        etapa.put("fila", fila);
+        etapa.put("guiches", guiches);
+        etapa.put("chamadas", chamadas);
+        etapa.put("porSegundo", chamadas / segundos);
+        etapa.put("p50Ms", histograma.getValueAtPercentile(50) / 1000.0);
+        etapa.put("p99Ms", histograma.getValueAtPercentile(99) / 1000.0);
+        etapa.put("maximoMs", histograma.getMaxValue() / 1000.0);
+        etapa.put("percentualPreferencial", percentualPreferencial);
+
+        System.out.printf("%8d %8d %9d %10.1f %9.2f %9.2f %9.2f %9.1f%n", fila, guiches, chamadas, chamadas / segundos,
+                histograma.getValueAtPercentile(50) / 1000.0, histograma.getValueAtPercentile(99) / 1000.0,
+                histograma.getMaxValue() / 1000.0, percentualPreferencial);
+        return etapa;
+    }
+
+    private static List<Integer> inteiros(String texto) {
+        return Arrays.stream(texto.split(",")).map(String::trim).map(Integer::parseInt).toList();
+    }
+}
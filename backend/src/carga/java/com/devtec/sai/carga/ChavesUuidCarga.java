@@ -0,0 +1,146 @@
+package com.devtec.sai.carga;
+
+import com.devtec.sai.util.UuidV7;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Compara chaves UUID v4 (aleatórias) e v7 (ordenadas por tempo) numa tabela com o layout de uma
+// partição de tb_agendamentos: vazão de INSERT em lotes, a cada décimo da carga, e tamanho final do índice.
+//   ./mvnw -Pcarga -DskipTests verify -Dcarga.classe=com.devtec.sai.carga.ChavesUuidCarga -Dcarga.args="linhas=1000000"
+// Parâmetros: linhas=1000000, lote=1000, banco=jdbc:postgresql://... (banco-usuario, banco-senha), resultado=arquivo.json
+public class ChavesUuidCarga {
+
+    private static final int FATIAS = 10;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            int separador = arg.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException("Parâmetro inválido (esperado chave=valor): " + arg);
+            }
+            valores.put(arg.substring(0, separador), arg.substring(separador + 1));
+        }
+        int linhas = Integer.parseInt(valores.getOrDefault("linhas", "1000000"));
+        int lote = Integer.parseInt(valores.getOrDefault("lote", "1000"));
+        Path resultado = Path.of(valores.getOrDefault("resultado", "uuid-resultado.json"));
+
+        EmbeddedPostgres postgres = null;
+        String url = valores.get("banco");
+        String usuario = valores.getOrDefault("banco-usuario", "postgres");
+        String senha = valores.getOrDefault("banco-senha", "postgres");
+        if (url == null) {
+            postgres = EmbeddedPostgres.builder().start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+        url += (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+
+        try (Connection conexao = DriverManager.getConnection(url, usuario, senha)) {
+            Map<String, Object> variantes = new LinkedHashMap<>();
+            variantes.put("v4", medir(conexao, "carga_uuid_v4", UUID::randomUUID, linhas, lote));
+            variantes.put("v7", medir(conexao, "carga_uuid_v7", UuidV7::gerar, linhas, lote));
+
+            Map<String, Object> saida = new LinkedHashMap<>();
+            saida.put("linhas", linhas);
+            saida.put("lote", lote);
+            saida.put("variantes", variantes);
+            new ObjectMapper()
+                    .enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(resultado.toFile(), saida);
+            System.out.println("Resultado gravado em " + resultado);
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static Map<String, Object> medir(Connection conexao, String tabela, Supplier<UUID> ids,
+                                             int linhas, int lote) throws SQLException {
+        try (Statement ddl = conexao.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS " + tabela);
+            ddl.execute("CREATE TABLE " + tabela + " ("
+                    + "id UUID NOT NULL, nome_solicitante VARCHAR(255) NOT NULL, cpf VARCHAR(11) NOT NULL, "
+                    + "rg VARCHAR(20), tipo_servico VARCHAR(100) NOT NULL, data_hora_chegada TIMESTAMP NOT NULL, "
+                    + "status VARCHAR(20) NOT NULL, prioridade VARCHAR(20) NOT NULL DEFAULT 'NORMAL', "
+                    + "PRIMARY KEY (id, data_hora_chegada))");
+            ddl.execute("CHECKPOINT");
+        }
+
+        conexao.setAutoCommit(false);
+        List<Double> porFatia = new ArrayList<>();
+        int porFatiaLinhas = Math.max(1, linhas / FATIAS);
+        long inicio = System.nanoTime();
+        long inicioFatia = inicio;
+
+        try (PreparedStatement insert = conexao.prepareStatement("INSERT INTO " + tabela
+                + " (id, nome_solicitante, cpf, rg, tipo_servico, data_hora_chegada, status) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= linhas; i++) {
+                insert.setObject(1, ids.get());
+                insert.setString(2, "Cidadão " + i);
+                insert.setString(3, "52998224725");
+                insert.setString(4, "123456");
+                insert.setString(5, "RG");
+                insert.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
+                insert.setString(7, "AGUARDANDO");
+                insert.addBatch();
+
+                if (i % lote == 0 || i == linhas) {
+                    insert.executeBatch();
+                    conexao.commit();
+                }
+                if (i % porFatiaLinhas == 0) {
+                    long agora = System.nanoTime();
+                    porFatia.add(porFatiaLinhas / ((agora - inicioFatia) / 1e9));
+                    inicioFatia = agora;
+                }
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        conexao.setAutoCommit(true);
+
+        Map<String, Object> medida = new LinkedHashMap<>();
+        medida.put("segundos", segundos);
+        medida.put("linhasPorSegundo", linhas / segundos);
+        medida.put("linhasPorSegundoPorFatia", porFatia);
+        medida.put("bytesIndice", tamanho(conexao, tabela + "_pkey"));
+        medida.put("bytesTabela", tamanho(conexao, tabela));
+
+        System.out.printf("%s: %.1f s, %.0f linhas/s (último décimo %.0f linhas/s), índice %d MB, tabela %d MB%n",
+                tabela, segundos, linhas / segundos, porFatia.isEmpty() ? 0 : porFatia.get(porFatia.size() - 1),
+                (long) medida.get("bytesIndice") / (1024 * 1024), (long) medida.get("bytesTabela") / (1024 * 1024));
+
+        try (Statement ddl = conexao.createStatement()) {
+            ddl.execute("DROP TABLE " + tabela);
+        }
+        return medida;
+    }
+
+    private static long tamanho(Connection conexao, String relacao) throws SQLException {
+        try (PreparedStatement consulta = conexao.prepareStatement("SELECT pg_relation_size(?::regclass)")) {
+            consulta.setString(1, relacao);
+            try (ResultSet rs = consulta.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
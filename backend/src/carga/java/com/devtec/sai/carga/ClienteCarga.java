@@ -0,0 +1,166 @@
+package com.devtec.sai.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Requisições HTTP da carga, sempre com Bearer token: passam pelo SecurityFilter como as do front
+class ClienteCarga {
+
+    private static final String[] SERVICOS = {"RG", "CPF", "CNH", "Título de eleitor"};
+
+    private final String base;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final List<String> tokensGuiche = new ArrayList<>();
+    private String tokenAdmin;
+
+    // Agendamentos criados pela carga ainda aguardando e os já em atendimento, para as mudanças de status
+    private final Queue<String> emAberto = new ConcurrentLinkedQueue<>();
+    private final Queue<String> emAtendimento = new ConcurrentLinkedQueue<>();
+
+    ClienteCarga(int porta) {
+        this.base = "http://localhost:" + porta;
+    }
+
+    void autenticar(String loginAdmin, String senhaAdmin, int usuarios) throws IOException, InterruptedException {
+        tokenAdmin = login(loginAdmin, senhaAdmin);
+        for (int i = 0; i < usuarios; i++) {
+            String login = "carga-guiche-" + i;
+            enviar(post("/auth/register", "{\"login\":\"" + login + "\",\"senha\":\"carga\",\"role\":\"USER\"}", null));
+            tokensGuiche.add(login(login, "carga"));
+        }
+    }
+
+    // Devolve o status HTTP; o chamador decide o que conta como sucesso
+    int executar(Operacao operacao, int cliente) throws IOException, InterruptedException {
+        String token = tokensGuiche.get(cliente % tokensGuiche.size());
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+
+        return switch (operacao) {
+            case AGENDAR -> {
+                String corpo = "{\"nomeSolicitante\":\"Cidadão " + aleatorio.nextInt(1_000_000) + "\","
+                        + "\"cpf\":\"" + cpf(aleatorio) + "\",\"rg\":\"123456\","
+                        + "\"tipoServico\":\"" + SERVICOS[aleatorio.nextInt(SERVICOS.length)] + "\","
+                        + "\"prioridade\":\"" + (aleatorio.nextInt(5) == 0 ? "IDOSO" : "NORMAL") + "\"}";
+                HttpResponse<String> resposta = enviar(post("/agendamentos/agendar", corpo, token));
+                if (resposta.statusCode() == 201) {
+                    emAberto.add(objectMapper.readTree(resposta.body()).get("id").asText());
+                }
+                yield resposta.statusCode();
+            }
+            case CONSULTAR -> {
+                String filtro = aleatorio.nextBoolean() ? "&status=AGUARDANDO" : "";
+                yield enviar(get("/agendamentos/consultar_agendamentos?limite=50" + filtro, token)).statusCode();
+            }
+            case CHAMAR -> {
+                HttpResponse<String> resposta = enviar(post("/agendamentos/chamar-proximo", "", token));
+                if (resposta.statusCode() == 200) {
+                    emAtendimento.add(objectMapper.readTree(resposta.body()).get("id").asText());
+                }
+                yield resposta.statusCode();
+            }
+            // Segue a tabela de transições: conclui quem está em atendimento; senão inicia (ou cancela) um aguardando
+            case STATUS -> {
+                String id = emAtendimento.poll();
+                if (id != null) {
+                    yield enviar(post("/agendamentos/" + id + "/status", "{\"status\":\"CONCLUIDO\"}", token)).statusCode();
+                }
+                id = emAberto.poll();
+                if (id == null) {
+                    yield enviar(get("/agendamentos/contagem", token)).statusCode();
+                }
+                String status = aleatorio.nextInt(10) == 0 ? "CANCELADO" : "EM_ATENDIMENTO";
+                int codigo = enviar(post("/agendamentos/" + id + "/status", "{\"status\":\"" + status + "\"}", token)).statusCode();
+                if (codigo == 201 && status.equals("EM_ATENDIMENTO")) {
+                    emAtendimento.add(id);
+                }
+                yield codigo;
+            }
+            case FECHAR -> enviar(post("/agendamentos/fechar-expediente", "", tokenAdmin)).statusCode();
+        };
+    }
+
+    // Solicita o fechamento e acompanha o job até terminar; devolve o JSON final do job
+    JsonNode fecharExpediente() throws IOException, InterruptedException {
+        JsonNode job = objectMapper.readTree(enviar(post("/agendamentos/fechar-expediente", "", tokenAdmin)).body());
+        while (!"CONCLUIDO".equals(job.get("situacao").asText()) && !"FALHOU".equals(job.get("situacao").asText())) {
+            Thread.sleep(200);
+            job = objectMapper.readTree(enviar(get("/agendamentos/fechar-expediente/" + job.get("id").asText(), tokenAdmin)).body());
+        }
+        return job;
+    }
+
+    private String login(String login, String senha) throws IOException, InterruptedException {
+        HttpResponse<String> resposta = enviar(post("/auth/login", "{\"login\":\"" + login + "\",\"senha\":\"" + senha + "\"}", null));
+        if (resposta.statusCode() != 200) {
+            throw new IllegalStateException("Login de " + login + " falhou: HTTP " + resposta.statusCode());
+        }
+        return objectMapper.readTree(resposta.body()).get("token").asText();
+    }
+
+    private HttpRequest post(String caminho, String corpo, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + caminho))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest get(String caminho, String token) {
+        return HttpRequest.newBuilder(URI.create(base + caminho))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private HttpResponse<String> enviar(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // CPF aleatório com dígitos verificadores válidos, para passar pelo @CPF
+    private static String cpf(ThreadLocalRandom aleatorio) {
+        int[] digitos = new int[11];
+        for (int i = 0; i < 9; i++) {
+            digitos[i] = aleatorio.nextInt(10);
+        }
+        digitos[9] = digitoVerificador(digitos, 9);
+        digitos[10] = digitoVerificador(digitos, 10);
+
+        StringBuilder cpf = new StringBuilder(11);
+        for (int digito : digitos) {
+            cpf.append(digito);
+        }
+        return cpf.toString();
+    }
+
+    private static int digitoVerificador(int[] digitos, int posicao) {
+        int soma = 0;
+        for (int i = 0; i < posicao; i++) {
+            soma += digitos[i] * (posicao + 1 - i);
+        }
+        int resto = soma % 11;
+        return resto < 2 ? 0 : 11 - resto;
+    }
+}
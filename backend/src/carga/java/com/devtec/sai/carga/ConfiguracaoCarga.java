@@ -0,0 +1,73 @@
+package com.devtec.sai.carga;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Parâmetros no formato chave=valor (vindos de -Dcarga.args):
+//   clientes=50,100,200   uma etapa por quantidade de clientes simultâneos
+//   duracao-s=30          medição de cada etapa
+//   aquecimento-s=5       carga descartada antes de cada etapa
+//   pausa-ms=0            espera de cada cliente entre requisições
+//   mix=agendar:25,consultar:60,chamar:5,status:10,fechar:0
+//   usuarios=10           guichês cadastrados; os clientes dividem os tokens entre eles
+//   fechar-ao-final=true  fecha o expediente no fim e mede o job até o PDF ficar pronto
+//   banco=jdbc:postgresql://...  usa um Postgres local (será limpo e arquivado!) em vez do embutido
+//   banco-usuario=..., banco-senha=...
+record ConfiguracaoCarga(
+        List<Integer> clientes,
+        int duracaoSegundos,
+        int aquecimentoSegundos,
+        long pausaMs,
+        Map<Operacao, Integer> mix,
+        int usuarios,
+        boolean fecharAoFinal,
+        String banco,
+        String bancoUsuario,
+        String bancoSenha,
+        Path resultado
+) {
+
+    static ConfiguracaoCarga de(String[] args) {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            int separador = arg.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException("Parâmetro inválido (esperado chave=valor): " + arg);
+            }
+            valores.put(arg.substring(0, separador), arg.substring(separador + 1));
+        }
+
+        return new ConfiguracaoCarga(
+                Arrays.stream(valores.getOrDefault("clientes", "50,100,200").split(","))
+                        .map(String::trim)
+                        .map(Integer::parseInt)
+                        .toList(),
+                Integer.parseInt(valores.getOrDefault("duracao-s", "30")),
+                Integer.parseInt(valores.getOrDefault("aquecimento-s", "5")),
+                Long.parseLong(valores.getOrDefault("pausa-ms", "0")),
+                mix(valores.getOrDefault("mix", "agendar:25,consultar:60,chamar:5,status:10,fechar:0")),
+                Integer.parseInt(valores.getOrDefault("usuarios", "10")),
+                Boolean.parseBoolean(valores.getOrDefault("fechar-ao-final", "true")),
+                valores.get("banco"),
+                valores.getOrDefault("banco-usuario", "postgres"),
+                valores.getOrDefault("banco-senha", "postgres"),
+                Path.of(valores.getOrDefault("resultado", "carga-resultado.json"))
+        );
+    }
+
+    private static Map<Operacao, Integer> mix(String texto) {
+        Map<Operacao, Integer> pesos = new EnumMap<>(Operacao.class);
+        for (String item : texto.split(",")) {
+            String[] partes = item.split(":");
+            pesos.put(Operacao.valueOf(partes[0].trim().toUpperCase()), Integer.parseInt(partes[1].trim()));
+        }
+        if (pesos.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("O mix precisa de ao menos uma operação com peso positivo");
+        }
+        return pesos;
+    }
+}
@@ -0,0 +1,218 @@
+package com.devtec.sai.carga;
+
+import com.devtec.sai.SaiApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Início de turno: todos os guichês fazem login ao mesmo tempo enquanto outros já consultam a fila.
+// Mede a latência das consultas sem carga e durante a tempestade de logins, e quantos logins foram recusados (503).
+//   ./mvnw -Pcarga -DskipTests verify -Dcarga.classe=com.devtec.sai.carga.LoginTempestadeCarga -Dcarga.args="logins=300"
+// Parâmetros: logins=300, consultores=8, janela-s=2 (mínimo de medição por fase),
+// banco=jdbc:postgresql://... (banco-usuario, banco-senha), resultado=arquivo.json
+public class LoginTempestadeCarga {
+
+    private static final String LOGIN = "carga-tempestade";
+    private static final String SENHA = "carga-tempestade";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            int separador = arg.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException("Parâmetro inválido (esperado chave=valor): " + arg);
+            }
+            valores.put(arg.substring(0, separador), arg.substring(separador + 1));
+        }
+        int logins = Integer.parseInt(valores.getOrDefault("logins", "300"));
+        int consultores = Integer.parseInt(valores.getOrDefault("consultores", "8"));
+        long janelaMs = TimeUnit.SECONDS.toMillis(Long.parseLong(valores.getOrDefault("janela-s", "2")));
+        Path resultado = Path.of(valores.getOrDefault("resultado", "login-tempestade-resultado.json"));
+
+        EmbeddedPostgres postgres = null;
+        String url = valores.get("banco");
+        String usuario = valores.getOrDefault("banco-usuario", "postgres");
+        String senha = valores.getOrDefault("banco-senha", "postgres");
+        if (url == null) {
+            postgres = EmbeddedPostgres.builder().start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        try (ConfigurableApplicationContext contexto = new SpringApplication(SaiApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + usuario,
+                "--spring.datasource.password=" + senha,
+                "--JWT_SECRET=" + UUID.randomUUID(),
+                "--logging.level.root=WARN",
+                "--logging.level.com.devtec.sai=WARN")) {
+            int porta = Integer.parseInt(contexto.getEnvironment().getRequiredProperty("local.server.port"));
+            Cliente cliente = new Cliente(porta);
+
+            cliente.enviar(cliente.post("/auth/register",
+                    "{\"login\":\"" + LOGIN + "\",\"senha\":\"" + SENHA + "\",\"role\":\"USER\"}"));
+            HttpResponse<String> primeiroLogin = cliente.login();
+            if (primeiroLogin.statusCode() != 200) {
+                throw new IllegalStateException("Login inicial falhou: HTTP " + primeiroLogin.statusCode());
+            }
+            String token = new ObjectMapper().readTree(primeiroLogin.body()).get("token").asText();
+
+            consultarDurante(cliente, token, consultores, janelaMs, () -> { }); // aquecimento
+            Histogram linhaDeBase = consultarDurante(cliente, token, consultores, janelaMs, () -> { });
+
+            AtomicInteger aceitos = new AtomicInteger();
+            AtomicInteger recusados = new AtomicInteger();
+            AtomicInteger outros = new AtomicInteger();
+            Histogram duranteTempestade = consultarDurante(cliente, token, consultores, janelaMs, () -> {
+                try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+                    List<Future<HttpResponse<String>>> respostas = new ArrayList<>();
+                    for (int i = 0; i < logins; i++) {
+                        respostas.add(clientes.submit(cliente::login));
+                    }
+                    for (Future<HttpResponse<String>> resposta : respostas) {
+                        HttpResponse<String> r = resposta.get();
+                        if (r.statusCode() == 200) {
+                            aceitos.incrementAndGet();
+                        } else if (r.statusCode() == 503 && r.headers().firstValue("Retry-After").isPresent()) {
+                            recusados.incrementAndGet();
+                        } else {
+                            outros.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            System.out.printf("%nLogins: %d aceitos, %d recusados (503), %d com outra resposta%n",
+                    aceitos.get(), recusados.get(), outros.get());
+            System.out.printf("%-12s %9s %9s %9s %9s%n", "consulta", "amostras", "p50 ms", "p95 ms", "p99 ms");
+            imprimir("base", linhaDeBase);
+            imprimir("tempestade", duranteTempestade);
+
+            Map<String, Object> saida = new LinkedHashMap<>();
+            saida.put("logins", Map.of("total", logins, "aceitos", aceitos.get(),
+                    "recusados", recusados.get(), "outros", outros.get()));
+            saida.put("consultaBase", resumo(linhaDeBase));
+            saida.put("consultaTempestade", resumo(duranteTempestade));
+            new ObjectMapper()
+                    .enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(resultado.toFile(), saida);
+            System.out.println("Resultado gravado em " + resultado);
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    // Latência das consultas à fila enquanto 'carga' executa (e no mínimo por janelaMs)
+    private static Histogram consultarDurante(Cliente cliente, String token, int consultores, long janelaMs,
+                                             Runnable carga) throws InterruptedException {
+        // Microssegundos, de 1 µs a 1 min, 3 dígitos significativos
+        Recorder latencias = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+        AtomicBoolean parar = new AtomicBoolean();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < consultores; i++) {
+                executor.submit(() -> {
+                    while (!parar.get()) {
+                        long inicio = System.nanoTime();
+                        HttpResponse<String> r = cliente.enviar(cliente.get("/agendamentos/consultar_agendamentos?limite=50", token));
+                        if (r.statusCode() == 200) {
+                            latencias.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio),
+                                    TimeUnit.MINUTES.toMicros(1)));
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            Thread.sleep(500);
+            latencias.reset();
+            long inicio = System.nanoTime();
+            carga.run();
+            long restante = janelaMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            if (restante > 0) {
+                Thread.sleep(restante);
+            }
+            parar.set(true);
+        }
+        return latencias.getIntervalHistogram();
+    }
+
+    private static void imprimir(String fase, Histogram histograma) {
+        System.out.printf("%-12s %9d %9.2f %9.2f %9.2f%n", fase, histograma.getTotalCount(),
+                histograma.getValueAtPercentile(50) / 1000.0,
+                histograma.getValueAtPercentile(95) / 1000.0,
+                histograma.getValueAtPercentile(99) / 1000.0);
+    }
+
+    private static Map<String, Object> resumo(Histogram histograma) {
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("amostras", histograma.getTotalCount());
+        resumo.put("p50Ms", histograma.getValueAtPercentile(50) / 1000.0);
+        resumo.put("p95Ms", histograma.getValueAtPercentile(95) / 1000.0);
+        resumo.put("p99Ms", histograma.getValueAtPercentile(99) / 1000.0);
+        return resumo;
+    }
+
+    private static final class Cliente {
+
+        private final String base;
+        private final HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        Cliente(int porta) {
+            this.base = "http://localhost:" + porta;
+        }
+
+        HttpResponse<String> login() throws Exception {
+            return enviar(post("/auth/login", "{\"login\":\"" + LOGIN + "\",\"senha\":\"" + SENHA + "\"}"));
+        }
+
+        HttpRequest post(String caminho, String corpo) {
+            return HttpRequest.newBuilder(URI.create(base + caminho))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(60))
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                    .build();
+        }
+
+        HttpRequest get(String caminho, String token) {
+            return HttpRequest.newBuilder(URI.create(base + caminho))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+        }
+
+        HttpResponse<String> enviar(HttpRequest request) throws Exception {
+            return http.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.devtec.sai.carga;
+
+// Tipos de requisição misturados pelo teste de carga
+enum Operacao {
+    AGENDAR,
+    CONSULTAR,
+    CHAMAR,
+    STATUS,
+    FECHAR
+}
@@ -0,0 +1,125 @@
+package com.devtec.sai.carga;
+
+import com.devtec.sai.SaiApplication;
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.AgendamentosRequestDTO;
+import com.devtec.sai.model.Agendamento;
+import com.devtec.sai.model.StatusAgendamento;
+import com.devtec.sai.repository.AgendamentoSpecifications;
+import com.devtec.sai.repository.AgendamentosRepository;
+import com.devtec.sai.service.AgendamentoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Leitura de uma página grande da fila como era (entidades gerenciadas copiadas para o DTO)
+// contra a projeção direta no DTO: latência e bytes alocados por consulta, na mesma JVM e no mesmo banco.
+//   ./mvnw -Pcarga -DskipTests verify -Dcarga.classe=com.devtec.sai.carga.ProjecaoFilaCarga -Dcarga.args="linhas=20000 limite=500"
+// Parâmetros: linhas=20000, limite=500, aquecimento=200, repeticoes=500, resultado=arquivo.json
+public class ProjecaoFilaCarga {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            int separador = arg.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException("Parâmetro inválido (esperado chave=valor): " + arg);
+            }
+            valores.put(arg.substring(0, separador), arg.substring(separador + 1));
+        }
+        int linhas = Integer.parseInt(valores.getOrDefault("linhas", "20000"));
+        int limite = Integer.parseInt(valores.getOrDefault("limite", "500"));
+        int aquecimento = Integer.parseInt(valores.getOrDefault("aquecimento", "200"));
+        int repeticoes = Integer.parseInt(valores.getOrDefault("repeticoes", "500"));
+        Path resultado = Path.of(valores.getOrDefault("resultado", "projecao-resultado.json"));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext contexto = new SpringApplication(SaiApplication.class).run(
+                     "--server.port=0",
+                     "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                     "--spring.datasource.username=postgres",
+                     "--spring.datasource.password=postgres",
+                     "--ADMIN_LOGIN_LINE=carga-admin",
+                     "--ADMIN_PASSWORD_LINE=carga-admin",
+                     "--JWT_SECRET=" + UUID.randomUUID(),
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.devtec.sai=WARN")) {
+
+            AgendamentoService agendamentoService = contexto.getBean(AgendamentoService.class);
+            AgendamentosRepository repository = contexto.getBean(AgendamentosRepository.class);
+
+            List<AgendamentosRequestDTO> lote = new ArrayList<>();
+            for (int i = 0; i < linhas; i++) {
+                lote.add(new AgendamentosRequestDTO("Cidadão " + i, "52998224725", "123456", "RG", null));
+                if (lote.size() == 1000 || i == linhas - 1) {
+                    agendamentoService.criarEmLote(lote);
+                    lote.clear();
+                }
+            }
+
+            Specification<Agendamento> filtro = AgendamentoSpecifications.comStatus(StatusAgendamento.AGUARDANDO);
+            Map<String, Object> medidas = new LinkedHashMap<>();
+            medidas.put("entidades", medir("entidades", aquecimento, repeticoes, () -> repository.findBy(filtro, query -> query
+                            .sortBy(Sort.by("dataHoraChegada", "id"))
+                            .limit(limite)
+                            .all())
+                    .stream()
+                    .map(AgendamentoResponseDTO::de)
+                    .toList()));
+            medidas.put("projecao", medir("projecao", aquecimento, repeticoes, () -> repository.consultarResumo(filtro, limite)));
+
+            Map<String, Object> saida = new LinkedHashMap<>();
+            saida.put("linhas", linhas);
+            saida.put("limite", limite);
+            saida.put("repeticoes", repeticoes);
+            saida.put("medidas", medidas);
+            new ObjectMapper()
+                    .enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(resultado.toFile(), saida);
+            System.out.println("Resultado gravado em " + resultado);
+        }
+    }
+
+    private static Map<String, Object> medir(String nome, int aquecimento, int repeticoes,
+                                             Supplier<List<AgendamentoResponseDTO>> consulta) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < aquecimento; i++) {
+            consulta.get();
+        }
+
+        long[] micros = new long[repeticoes];
+        long bytesAntes = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < repeticoes; i++) {
+            long inicio = System.nanoTime();
+            consulta.get();
+            micros[i] = (System.nanoTime() - inicio) / 1000;
+        }
+        long bytesPorConsulta = (threads.getCurrentThreadAllocatedBytes() - bytesAntes) / repeticoes;
+
+        Arrays.sort(micros);
+        Map<String, Object> medida = new LinkedHashMap<>();
+        medida.put("mediaMs", Arrays.stream(micros).average().orElse(0) / 1000);
+        medida.put("p50Ms", micros[repeticoes / 2] / 1000.0);
+        medida.put("p99Ms", micros[(int) Math.ceil(repeticoes * 0.99) - 1] / 1000.0);
+        medida.put("kbAlocadosPorConsulta", bytesPorConsulta / 1024);
+
+        System.out.printf("%-10s média %.2f ms, p50 %.2f ms, p99 %.2f ms, %d KB alocados por consulta%n", nome,
+                (double) medida.get("mediaMs"), (double) medida.get("p50Ms"), (double) medida.get("p99Ms"), bytesPorConsulta / 1024);
+        return medida;
+    }
+}
@@ -0,0 +1,224 @@
+package com.devtec.sai.carga;
+
+import com.devtec.sai.SaiApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sobe a aplicação inteira (Flyway, JPA, JWT, SecurityFilter) contra um Postgres embutido e mede,
+// por etapa de clientes simultâneos, vazão e latência de cada tipo de requisição.
+// Cada cliente é uma thread virtual em laço fechado: envia, espera a resposta, repete.
+public class TesteCarga {
+
+    private static final String LOGIN_ADMIN = "carga-admin";
+    private static final String SENHA_ADMIN = "carga-admin";
+    private static final double[] PERCENTIS = {50, 75, 90, 95, 99, 99.9, 100};
+
+    public static void main(String[] args) throws Exception {
+        ConfiguracaoCarga configuracao = ConfiguracaoCarga.de(args);
+
+        EmbeddedPostgres postgres = null;
+        String url = configuracao.banco();
+        String usuario = configuracao.bancoUsuario();
+        String senha = configuracao.bancoSenha();
+        if (url == null) {
+            postgres = EmbeddedPostgres.builder().start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+            usuario = "postgres";
+            senha = "postgres";
+        }
+
+        try (ConfigurableApplicationContext contexto = iniciarAplicacao(url, usuario, senha)) {
+            int porta = Integer.parseInt(contexto.getEnvironment().getRequiredProperty("local.server.port"));
+
+            ClienteCarga cliente = new ClienteCarga(porta);
+            cliente.autenticar(LOGIN_ADMIN, SENHA_ADMIN, configuracao.usuarios());
+
+            List<Map<String, Object>> etapas = new ArrayList<>();
+            for (int clientes : configuracao.clientes()) {
+                etapas.add(executarEtapa(cliente, configuracao, clientes));
+            }
+
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            resultado.put("configuracao", configuracao);
+            resultado.put("etapas", etapas);
+
+            if (configuracao.fecharAoFinal()) {
+                long inicio = System.nanoTime();
+                JsonNode job = cliente.fecharExpediente();
+                long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+                System.out.printf("%nFechamento do expediente: %s em %d ms (%s agendamentos no relatório)%n",
+                        job.get("situacao").asText(), duracaoMs, job.get("total").asText());
+                resultado.put("fechamento", Map.of("situacao", job.get("situacao").asText(),
+                        "duracaoMs", duracaoMs, "total", job.get("total").asLong()));
+            }
+
+            new ObjectMapper()
+                    .findAndRegisterModules()
+                    .enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(configuracao.resultado().toFile(), resultado);
+            System.out.println("Resultado gravado em " + configuracao.resultado());
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext iniciarAplicacao(String url, String usuario, String senha) {
+        SpringApplication aplicacao = new SpringApplication(SaiApplication.class);
+        return aplicacao.run(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + usuario,
+                "--spring.datasource.password=" + senha,
+                "--ADMIN_LOGIN_LINE=" + LOGIN_ADMIN,
+                "--ADMIN_PASSWORD_LINE=" + SENHA_ADMIN,
+                "--JWT_SECRET=" + UUID.randomUUID(),
+                "--logging.level.root=WARN",
+                "--logging.level.com.devtec.sai=WARN");
+    }
+
+    private static Map<String, Object> executarEtapa(ClienteCarga cliente, ConfiguracaoCarga configuracao,
+                                                     int clientes) throws InterruptedException {
+        Map<Operacao, Recorder> latencias = new EnumMap<>(Operacao.class);
+        Map<Operacao, LongAdder> erros = new EnumMap<>(Operacao.class);
+        for (Operacao operacao : Operacao.values()) {
+            // Microssegundos, de 1 µs a 1 min, 3 dígitos significativos
+            latencias.put(operacao, new Recorder(TimeUnit.MINUTES.toMicros(1), 3));
+            erros.put(operacao, new LongAdder());
+        }
+
+        List<Operacao> sorteio = new ArrayList<>();
+        configuracao.mix().forEach((operacao, peso) -> {
+            for (int i = 0; i < peso; i++) {
+                sorteio.add(operacao);
+            }
+        });
+
+        AtomicBoolean medindo = new AtomicBoolean();
+        AtomicBoolean parar = new AtomicBoolean();
+
+        long duracaoNanos;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                int numero = c;
+                executor.submit(() -> {
+                    while (!parar.get()) {
+                        Operacao operacao = sorteio.get(ThreadLocalRandom.current().nextInt(sorteio.size()));
+                        long inicio = System.nanoTime();
+                        boolean sucesso;
+                        try {
+                            int status = cliente.executar(operacao, numero);
+                            sucesso = status >= 200 && status < 300;
+                        } catch (IOException e) {
+                            sucesso = false;
+                        }
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio);
+
+                        if (medindo.get()) {
+                            if (sucesso) {
+                                latencias.get(operacao).recordValue(Math.min(micros, TimeUnit.MINUTES.toMicros(1)));
+                            } else {
+                                erros.get(operacao).increment();
+                            }
+                        }
+                        if (configuracao.pausaMs() > 0) {
+                            Thread.sleep(configuracao.pausaMs());
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(configuracao.aquecimentoSegundos()));
+            latencias.values().forEach(Recorder::reset);
+            medindo.set(true);
+            long inicio = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(configuracao.duracaoSegundos()));
+            medindo.set(false);
+            duracaoNanos = System.nanoTime() - inicio;
+            parar.set(true);
+        }
+
+        return relatorioEtapa(clientes, duracaoNanos, latencias, erros);
+    }
+
+    private static Map<String, Object> relatorioEtapa(int clientes, long duracaoNanos, Map<Operacao, Recorder> latencias,
+                                                      Map<Operacao, LongAdder> erros) {
+        double segundos = duracaoNanos / 1e9;
+        Map<String, Object> etapa = new LinkedHashMap<>();
+        Map<String, Object> operacoes = new LinkedHashMap<>();
+        long totalEtapa = 0;
+
+        System.out.printf("%n=== %d clientes (%.1f s) ===%n", clientes, segundos);
+        System.out.printf("%-10s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operação", "req", "erros", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms");
+
+        for (Operacao operacao : Operacao.values()) {
+            Histogram histograma = latencias.get(operacao).getIntervalHistogram();
+            long total = histograma.getTotalCount();
+            long falhas = erros.get(operacao).sum();
+            if (total == 0 && falhas == 0) {
+                continue;
+            }
+            totalEtapa += total;
+
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("requisicoes", total);
+            dados.put("erros", falhas);
+            dados.put("porSegundo", total / segundos);
+
+            Map<String, Double> percentis = new LinkedHashMap<>();
+            for (double p : PERCENTIS) {
+                percentis.put("p" + p, histograma.getValueAtPercentile(p) / 1000.0);
+            }
+            dados.put("percentisMs", percentis);
+
+            // Faixas dobrando a partir de 1 ms: limite superior da faixa (ms) -> requisições
+            Map<String, Long> faixas = new LinkedHashMap<>();
+            for (HistogramIterationValue faixa : histograma.logarithmicBucketValues(1000, 2)) {
+                if (faixa.getCountAddedInThisIterationStep() > 0) {
+                    faixas.put(String.valueOf(faixa.getValueIteratedTo() / 1000.0), faixa.getCountAddedInThisIterationStep());
+                }
+            }
+            dados.put("histogramaMs", faixas);
+            operacoes.put(operacao.name(), dados);
+
+            System.out.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operacao, total, falhas, total / segundos,
+                    histograma.getValueAtPercentile(50) / 1000.0,
+                    histograma.getValueAtPercentile(90) / 1000.0,
+                    histograma.getValueAtPercentile(99) / 1000.0,
+                    histograma.getValueAtPercentile(99.9) / 1000.0,
+                    histograma.getMaxValue() / 1000.0);
+        }
+        System.out.printf("total: %.1f req/s%n", totalEtapa / segundos);
+
+        etapa.put("clientes", clientes);
+        etapa.put("duracaoSegundos", segundos);
+        etapa.put("porSegundo", totalEtapa / segundos);
+        etapa.put("operacoes", operacoes);
+        return etapa;
+    }
+}
@@ -0,0 +1,34 @@
+package com.devtec.sai.benchmark;
+
+import com.devtec.sai.model.Agendamento;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.model.StatusAgendamento;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Agendamentos sintéticos com a mesma forma dos reais (chegadas em ordem, status e prioridades variados)
+final class DadosBenchmark {
+
+    private static final String[] SERVICOS = {"RG", "CPF", "CNH", "Título de eleitor"};
+
+    private DadosBenchmark() {
+    }
+
+    static List<Agendamento> agendamentos(int quantidade) {
+        StatusAgendamento[] status = StatusAgendamento.values();
+        PrioridadeAtendimento[] prioridades = PrioridadeAtendimento.values();
+        LocalDateTime inicio = LocalDateTime.of(2025, 1, 6, 8, 0);
+
+        List<Agendamento> agendamentos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Agendamento agendamento = new Agendamento(UUID.randomUUID(), "Cidadão " + i, "52998224725", "12345678",
+                    SERVICOS[i % SERVICOS.length], inicio.plusSeconds(i), status[i % status.length]);
+            agendamento.setPrioridade(i % 5 == 0 ? prioridades[1 + i % (prioridades.length - 1)] : PrioridadeAtendimento.NORMAL);
+            agendamentos.add(agendamento);
+        }
+        return agendamentos;
+    }
+}
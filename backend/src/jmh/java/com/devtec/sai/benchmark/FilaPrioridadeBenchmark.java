@@ -0,0 +1,64 @@
+package com.devtec.sai.benchmark;
+
+import com.devtec.sai.service.FilaPrioridade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Parte em memória de cada chamada e de cada chegada: o índice tira da fila quem o banco chamou
+// (chamarProximo com SKIP LOCKED, medido ponta a ponta pelo ChamarProximoCarga) e enfileira quem chegou.
+// O custo deve ficar estável com o crescimento da fila.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilaPrioridadeBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int tamanhoFila;
+
+    private FilaPrioridade<Long, Long> fila;
+    private long proximaChegada;
+    private long proximoChamado;
+
+    @Setup
+    public void preencher() {
+        fila = new FilaPrioridade<>(Comparator.naturalOrder(), 2);
+        proximoChamado = 0;
+        for (proximaChegada = 0; proximaChegada < tamanhoFila; proximaChegada++) {
+            fila.enfileirar(proximaChegada, proximaChegada % 3 == 0, proximaChegada);
+        }
+    }
+
+    // Remove o chamado mais antigo e enfileira um novo cidadão, mantendo o tamanho da fila constante
+    @Benchmark
+    public boolean chamarEEnfileirar() {
+        boolean preferencial = fila.reservarVez().preferencial();
+        long chamado = proximoChamado++;
+        fila.remover(chamado);
+
+        long chegada = proximaChegada++;
+        fila.enfileirar(chegada, chegada % 3 == 0, chegada);
+        return preferencial;
+    }
+
+    // Painel de "próximos a serem chamados"
+    @Benchmark
+    public List<Long> ordemDeAtendimento() {
+        return fila.ordemDeAtendimento(50);
+    }
+}
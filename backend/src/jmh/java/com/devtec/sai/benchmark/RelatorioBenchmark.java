@@ -0,0 +1,70 @@
+package com.devtec.sai.benchmark;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.model.Agendamento;
+import com.devtec.sai.repository.AgendamentosRepository;
+import com.devtec.sai.service.RelatorioService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Geração do PDF do expediente por tamanho do dia. O repositório é um mock que entrega os lotes
+// já prontos, então o número mede só o iText e o laço de lotes, sem o banco.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RelatorioBenchmark {
+
+    private static final int LOTE = 500;
+
+    @Param({"100", "1000", "10000"})
+    private int tamanhoExpediente;
+
+    private RelatorioService relatorioService;
+    private List<List<AgendamentoResponseDTO>> lotes;
+    private Iterator<List<AgendamentoResponseDTO>> proximosLotes;
+
+    @Setup
+    public void preparar() {
+        List<AgendamentoResponseDTO> agendamentos = DadosBenchmark.agendamentos(tamanhoExpediente).stream()
+                .map(AgendamentoResponseDTO::de)
+                .toList();
+        lotes = new ArrayList<>();
+        for (int i = 0; i < agendamentos.size(); i += LOTE) {
+            lotes.add(agendamentos.subList(i, Math.min(i + LOTE, agendamentos.size())));
+        }
+
+        AgendamentosRepository repository = Mockito.mock(AgendamentosRepository.class);
+        Mockito.when(repository.contarPorStatus()).thenReturn(List.of());
+        Mockito.when(repository.consultarResumo(Mockito.<Specification<Agendamento>>any(), Mockito.anyInt()))
+                .thenAnswer(chamada -> proximosLotes.hasNext() ? proximosLotes.next() : List.of());
+
+        relatorioService = new RelatorioService(repository, new SimpleMeterRegistry(), LOTE, "");
+    }
+
+    @Benchmark
+    public void gerarRelatorio() {
+        proximosLotes = lotes.iterator();
+        relatorioService.gerarRelatorio(OutputStream.nullOutputStream());
+    }
+}
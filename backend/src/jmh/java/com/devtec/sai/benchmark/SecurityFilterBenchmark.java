@@ -0,0 +1,90 @@
+package com.devtec.sai.benchmark;
+
+import com.devtec.sai.config.SecurityFilter;
+import com.devtec.sai.model.UserRole;
+import com.devtec.sai.model.Usuario;
+import com.devtec.sai.repository.UsuarioRepository;
+import com.devtec.sai.service.BarramentoEventosService;
+import com.devtec.sai.service.EpocaTokenService;
+import com.devtec.sai.service.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Custo do SecurityFilter por requisição: extração do Bearer, verificação do token e checagem da época.
+// O repositório é um mock: depois da primeira requisição a época já está em memória.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityFilterBenchmark {
+
+    private static final FilterChain CADEIA = (request, response) -> { };
+
+    private SecurityFilter filtro;
+    private MockHttpServletRequest comToken;
+    private MockHttpServletRequest semToken;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void preparar() {
+        UsuarioRepository repository = Mockito.mock(UsuarioRepository.class);
+        Mockito.when(repository.buscarEpocaToken(Mockito.anyString())).thenReturn(Optional.of(0));
+
+        TokenService tokenService = new TokenService("segredo-benchmark", 10_000, 60);
+        filtro = new SecurityFilter(tokenService, new EpocaTokenService(repository,
+                Mockito.mock(BarramentoEventosService.class), new SimpleMeterRegistry(), 10_000, 60_000));
+
+        String token = tokenService.gerarToken(new Usuario("guiche01", "senha", UserRole.USER));
+        comToken = requisicao();
+        comToken.addHeader("Authorization", "Bearer " + token);
+        semToken = requisicao();
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object filtrarComToken() throws ServletException, IOException {
+        return filtrar(comToken);
+    }
+
+    // Só a extração do cabeçalho: requisição sem Authorization passa direto
+    @Benchmark
+    public Object filtrarSemToken() throws ServletException, IOException {
+        return filtrar(semToken);
+    }
+
+    private Object filtrar(MockHttpServletRequest request) throws ServletException, IOException {
+        // OncePerRequestFilter marca a requisição; a marca é removida para medir sempre o filtro inteiro
+        request.clearAttributes();
+        filtro.doFilter(request, response, CADEIA);
+        Object autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return autenticacao;
+    }
+
+    private static MockHttpServletRequest requisicao() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/agendamentos/consultar_agendamentos");
+        request.setRequestURI("/agendamentos/consultar_agendamentos");
+        return request;
+    }
+}
@@ -0,0 +1,62 @@
+package com.devtec.sai.benchmark;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.model.Agendamento;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Resposta de consultar_agendamentos: entidade -> AgendamentoResponseDTO e DTOs -> JSON,
+// com o ObjectMapper configurado como o do Spring Boot
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacaoFilaBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int tamanhoLista;
+
+    private List<Agendamento> agendamentos;
+    private List<AgendamentoResponseDTO> dtos;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void preparar() {
+        agendamentos = DadosBenchmark.agendamentos(tamanhoLista);
+        dtos = agendamentos.stream().map(AgendamentoResponseDTO::de).toList();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public List<AgendamentoResponseDTO> mapear() {
+        return agendamentos.stream().map(AgendamentoResponseDTO::de).toList();
+    }
+
+    @Benchmark
+    public void serializar() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), dtos);
+    }
+
+    @Benchmark
+    public void mapearESerializar() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), agendamentos.stream().map(AgendamentoResponseDTO::de).toList());
+    }
+}
@@ -0,0 +1,71 @@
+package com.devtec.sai.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.devtec.sai.model.UserRole;
+import com.devtec.sai.model.Usuario;
+import com.devtec.sai.service.TokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Emissão do token no login e custo de verificá-lo a cada requisição: como era (algoritmo e verificador novos a cada chamada),
+// só com o verificador reaproveitado (cache desligado) e com o cache de tokens verificados
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    private static final String SEGREDO = "segredo-benchmark";
+
+    private TokenService semCache;
+    private TokenService comCache;
+    private String token;
+    private Usuario usuario;
+
+    @Setup
+    public void preparar() {
+        semCache = new TokenService(SEGREDO, 0, 60);
+        comCache = new TokenService(SEGREDO, 10_000, 60);
+        usuario = new Usuario("guiche01", "senha", UserRole.USER);
+        token = comCache.gerarToken(usuario);
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return comCache.gerarToken(usuario);
+    }
+
+    @Benchmark
+    public String verificarComoAntes() {
+        Algorithm algorithm = Algorithm.HMAC256(SEGREDO);
+        return JWT.require(algorithm)
+                .withIssuer("SAI - Agendamentos")
+                .build()
+                .verify(token)
+                .getSubject();
+    }
+
+    @Benchmark
+    public Optional<TokenService.TokenVerificado> verificarSemCache() {
+        return semCache.verificar(token);
+    }
+
+    @Benchmark
+    public Optional<TokenService.TokenVerificado> verificarComCache() {
+        return comCache.verificar(token);
+    }
+}
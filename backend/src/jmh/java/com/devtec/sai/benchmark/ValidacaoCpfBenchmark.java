@@ -0,0 +1,59 @@
+package com.devtec.sai.benchmark;
+
+import com.devtec.sai.dto.AgendamentosRequestDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// @Valid do POST /agendar: Bean Validation completo do AgendamentosRequestDTO, com CPF válido e inválido
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacaoCpfBenchmark {
+
+    private ValidatorFactory factory;
+    private Validator validator;
+    private AgendamentosRequestDTO cpfValido;
+    private AgendamentosRequestDTO cpfInvalido;
+
+    @Setup
+    public void preparar() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+        cpfValido = new AgendamentosRequestDTO("Maria da Silva", "52998224725", "12345678", "RG", null);
+        cpfInvalido = new AgendamentosRequestDTO("Maria da Silva", "52998224724", "12345678", "RG", null);
+    }
+
+    @TearDown
+    public void encerrar() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<AgendamentosRequestDTO>> validarCpfValido() {
+        return validator.validate(cpfValido);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<AgendamentosRequestDTO>> validarCpfInvalido() {
+        return validator.validate(cpfInvalido);
+    }
+}
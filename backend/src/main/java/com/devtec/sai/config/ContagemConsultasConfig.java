@@ -0,0 +1,56 @@
+package com.devtec.sai.config;
+
+import com.devtec.sai.util.ContagemConsultas;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Envolve o DataSource com o datasource-proxy: cada statement executado (JPA ou JdbcTemplate)
+// soma uma ida ao banco, seu tempo e o SQL na ContagemConsultas da thread
+@Configuration
+public class ContagemConsultasConfig {
+
+    @Bean
+    public static BeanPostProcessor contagemConsultasDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new ContadorListener())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static final class ContadorListener implements QueryExecutionListener {
+
+        // ExecutionInfo só mede em milissegundos; consultas rápidas somariam zero
+        private final ThreadLocal<Long> inicio = new ThreadLocal<>();
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            inicio.set(System.nanoTime());
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            Long comeco = inicio.get();
+            inicio.remove();
+            // Um lote conta como uma execução: é uma ida só ao banco
+            String sql = queryInfoList.isEmpty() ? null : queryInfoList.get(0).getQuery();
+            ContagemConsultas.registrar(sql, comeco == null ? 0 : System.nanoTime() - comeco);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.devtec.sai.config;
+
+import com.devtec.sai.util.ContagemConsultas;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Conta as idas ao banco de cada requisição (incluindo as do SecurityFilter), publica por rota
+// e avisa no log quando a requisição passa do orçamento sai.banco.orcamento-consultas.
+// O mesmo SQL executado mais de sai.banco.limite-repeticoes vezes na requisição é tratado como
+// suspeita de N+1: aviso no log com o SQL e a métrica sai.http.banco.n-mais-um por rota.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ContagemConsultasFilter extends OncePerRequestFilter {
+
+    public static final String ATRIBUTO_CONSULTAS = "sai.banco.consultas";
+    public static final String ATRIBUTO_TEMPO_BANCO_NANOS = "sai.banco.tempo-nanos";
+
+    private static final Logger logger = LoggerFactory.getLogger(ContagemConsultasFilter.class);
+
+    private final MeterRegistry registry;
+    private final int orcamento;
+    private final int limiteRepeticoes;
+
+    public ContagemConsultasFilter(MeterRegistry registry,
+                                   @Value("${sai.banco.orcamento-consultas:10}") int orcamento,
+                                   @Value("${sai.banco.limite-repeticoes:3}") int limiteRepeticoes) {
+        this.registry = registry;
+        this.orcamento = orcamento;
+        this.limiteRepeticoes = limiteRepeticoes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ContagemConsultas contagem = ContagemConsultas.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ContagemConsultas.encerrar();
+            registrar(request, contagem);
+        }
+    }
+
+    private void registrar(HttpServletRequest request, ContagemConsultas contagem) {
+        request.setAttribute(ATRIBUTO_CONSULTAS, contagem.getConsultas());
+        request.setAttribute(ATRIBUTO_TEMPO_BANCO_NANOS, contagem.getTempoNanos());
+
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String rota = padrao != null ? padrao.toString() : "OUTRA";
+
+        DistributionSummary.builder("sai.http.banco.consultas")
+                .description("Idas ao banco por requisição")
+                .tags("method", request.getMethod(), "uri", rota)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(contagem.getConsultas());
+        Timer.builder("sai.http.banco.tempo")
+                .description("Tempo no banco por requisição")
+                .tags("method", request.getMethod(), "uri", rota)
+                .register(registry)
+                .record(contagem.getTempoNanos(), TimeUnit.NANOSECONDS);
+
+        if (contagem.getConsultas() > orcamento) {
+            logger.warn("{} {} fez {} consultas ao banco ({} ms), acima do orçamento de {}",
+                    request.getMethod(), request.getRequestURI(), contagem.getConsultas(),
+                    TimeUnit.NANOSECONDS.toMillis(contagem.getTempoNanos()), orcamento);
+        }
+
+        Map<String, Integer> repetidas = contagem.repetidasAcimaDe(limiteRepeticoes);
+        if (!repetidas.isEmpty()) {
+            Counter.builder("sai.http.banco.n-mais-um")
+                    .description("Requisições com o mesmo SQL repetido acima de sai.banco.limite-repeticoes")
+                    .tags("method", request.getMethod(), "uri", rota)
+                    .register(registry)
+                    .increment();
+            repetidas.forEach((sql, vezes) -> logger.warn("Possível N+1 em {} {}: {} execuções de {}",
+                    request.getMethod(), request.getRequestURI(), vezes, sql));
+        }
+    }
+}
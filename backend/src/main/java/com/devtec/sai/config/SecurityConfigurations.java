@@ -1,9 +1,13 @@
 package com.devtec.sai.config;
 
+import com.devtec.sai.controller.AgendamentoController;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -14,6 +18,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -35,6 +40,9 @@ public class SecurityConfigurations {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // Respostas assíncronas (SSE) já foram autorizadas na requisição original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Endpoints de Autenticação
                         .requestMatchers(HttpMethod.POST, "/api/v1/auth/login").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/v1/auth/register").permitAll()
@@ -47,8 +55,14 @@ public class SecurityConfigurations {
                         // Swagger e Error
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/error").permitAll()
 
+                        // Coleta do Prometheus (só contagens e tempos, sem dados pessoais)
+                        .requestMatchers(HttpMethod.GET, "/actuator/prometheus").permitAll()
+
                         .anyRequest().authenticated()
                 )
+                // Sem token válido (ausente, expirado ou de época revogada) a resposta é 401, não 403
+                .exceptionHandling(excecoes -> excecoes
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
                 .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class)
                 .build();
     }
@@ -69,7 +83,11 @@ public class SecurityConfigurations {
 
 
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Cache-Control"));
+        // Last-Event-ID: o EventSource reenvia sozinho ao reconectar, e fora da lista o preflight bloqueia a retomada
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Cache-Control",
+                HttpHeaders.IF_NONE_MATCH, AgendamentoController.CABECALHO_IDEMPOTENCIA, "Last-Event-ID"));
+        configuration.setExposedHeaders(Arrays.asList(AgendamentoController.CABECALHO_PROXIMO_CURSOR,
+                AgendamentoController.CABECALHO_VERSAO_FILA, HttpHeaders.ETAG));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,6 +1,7 @@
 package com.devtec.sai.config;
 
-import com.devtec.sai.repository.UsuarioRepository;
+import com.devtec.sai.model.Usuario;
+import com.devtec.sai.service.EpocaTokenService;
 import com.devtec.sai.service.TokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -8,7 +9,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -17,27 +17,39 @@ import java.io.IOException;
 @Component
 public class SecurityFilter extends OncePerRequestFilter {
 
+    static final String CAMINHO_EVENTOS = "/agendamentos/eventos";
+
     private final TokenService tokenService;
-    private final UsuarioRepository usuarioRepository;
+    private final EpocaTokenService epocaTokenService;
 
-    public SecurityFilter(TokenService tokenService, UsuarioRepository usuarioRepository) {
+    public SecurityFilter(TokenService tokenService, EpocaTokenService epocaTokenService) {
         this.tokenService = tokenService;
-        this.usuarioRepository = usuarioRepository;
+        this.epocaTokenService = epocaTokenService;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException{
         var token = recuperarToken(request);
+        // Token de eventos só na query do stream; o de sessão só no cabeçalho
+        boolean tokenEventos = false;
+        if (token == null && ehStreamEventos(request)) {
+            token = request.getParameter("token");
+            tokenEventos = true;
+        }
 
-        if (token != null) {
-            var login = tokenService.getSubject(token);
-
-            if (login != null && !login.isEmpty()) {
-                UserDetails usuario = usuarioRepository.findByLogin(login);
-
-                var authentication = new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+        if (token != null && !token.isBlank()) {
+            boolean esperadoEventos = tokenEventos;
+            // Perfil e época vêm do próprio token: sem consulta ao usuário no banco
+            tokenService.verificar(token)
+                    .filter(verificado -> verificado.somenteEventos() == esperadoEventos)
+                    .filter(verificado -> epocaTokenService.valida(verificado.login(), verificado.epoca()))
+                    .ifPresent(verificado -> {
+                        var usuario = new Usuario(verificado.login(), null, verificado.role());
+                        var authentication = new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
+                        // A sessão fica nos detalhes para emitir o token de eventos dela
+                        authentication.setDetails(verificado);
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                    });
         }
         filterChain.doFilter(request, response);
     }
@@ -49,6 +61,11 @@ public class SecurityFilter extends OncePerRequestFilter {
         return authHeader.substring(7).trim(); // remove "Bearer "
     }
 
+    private boolean ehStreamEventos(HttpServletRequest request) {
+        return "GET".equals(request.getMethod())
+                && request.getRequestURI().substring(request.getContextPath().length()).equals(CAMINHO_EVENTOS);
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
         String path = request.getRequestURI();
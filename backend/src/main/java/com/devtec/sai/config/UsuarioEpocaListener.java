@@ -0,0 +1,28 @@
+package com.devtec.sai.config;
+
+import com.devtec.sai.model.Usuario;
+import com.devtec.sai.service.EpocaTokenService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// Toda gravação de Usuario (cadastro, troca de perfil ou de senha) faz a época do login ser relida do banco
+@Component
+public class UsuarioEpocaListener {
+
+    // Resolvido sob demanda: o listener é criado junto com o EntityManagerFactory, antes dos repositórios
+    private final ObjectProvider<EpocaTokenService> epocas;
+
+    public UsuarioEpocaListener(ObjectProvider<EpocaTokenService> epocas) {
+        this.epocas = epocas;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void usuarioAlterado(Usuario usuario) {
+        epocas.getObject().invalidar(usuario.getLogin());
+    }
+}
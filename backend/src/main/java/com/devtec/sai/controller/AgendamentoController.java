@@ -1,61 +1,240 @@
 package com.devtec.sai.controller;
 
 import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.AgendamentosLoteRequestDTO;
 import com.devtec.sai.dto.AgendamentosRequestDTO;
 import com.devtec.sai.dto.AtualizarStatusDTO;
+import com.devtec.sai.dto.EstimativaEsperaDTO;
+import com.devtec.sai.dto.FechamentoExpedienteDTO;
+import com.devtec.sai.dto.FiltroExportacaoDTO;
+import com.devtec.sai.dto.PaginaAgendamentosDTO;
+import com.devtec.sai.dto.ResultadoLoteDTO;
+import com.devtec.sai.dto.ResumoEsperaDTO;
+import com.devtec.sai.dto.TokenEventosDTO;
+import com.devtec.sai.exception.VersaoFilaExpiradaException;
+import com.devtec.sai.model.FormatoExportacao;
+import com.devtec.sai.model.OrdemFila;
+import com.devtec.sai.model.StatusAgendamento;
 import com.devtec.sai.service.AgendamentoService;
+import com.devtec.sai.service.EstimativaEsperaService;
+import com.devtec.sai.service.ExportacaoService;
+import com.devtec.sai.service.FechamentoExpedienteService;
+import com.devtec.sai.service.FilaEventosService;
+import com.devtec.sai.service.RelatorioService;
+import com.devtec.sai.service.TokenService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/agendamentos")
 public class AgendamentoController {
 
+    public static final String CABECALHO_PROXIMO_CURSOR = "X-Proximo-Cursor";
+    public static final String CABECALHO_IDEMPOTENCIA = "Idempotency-Key";
+    public static final String CABECALHO_VERSAO_FILA = "X-Versao-Fila";
+
     private final AgendamentoService agendamentoService;
+    private final FilaEventosService filaEventosService;
+    private final RelatorioService relatorioService;
+    private final FechamentoExpedienteService fechamentoService;
+    private final EstimativaEsperaService estimativaEspera;
+    private final ExportacaoService exportacaoService;
+    private final TokenService tokenService;
 
-    public AgendamentoController(AgendamentoService agendamentoService) {
+    public AgendamentoController(AgendamentoService agendamentoService, FilaEventosService filaEventosService,
+                                 RelatorioService relatorioService, FechamentoExpedienteService fechamentoService,
+                                 EstimativaEsperaService estimativaEspera, ExportacaoService exportacaoService,
+                                 TokenService tokenService) {
         this.agendamentoService = agendamentoService;
+        this.filaEventosService = filaEventosService;
+        this.relatorioService = relatorioService;
+        this.fechamentoService = fechamentoService;
+        this.estimativaEspera = estimativaEspera;
+        this.exportacaoService = exportacaoService;
+        this.tokenService = tokenService;
     }
 
     @PostMapping("/agendar")
-    public ResponseEntity<AgendamentoResponseDTO> agendar(@RequestBody @Valid AgendamentosRequestDTO dados) {
-        AgendamentoResponseDTO response = agendamentoService.criar(dados);
+    public ResponseEntity<AgendamentoResponseDTO> agendar(@RequestBody @Valid AgendamentosRequestDTO dados,
+                                                          @RequestHeader(value = CABECALHO_IDEMPOTENCIA, required = false) String chaveIdempotencia) {
+        AgendamentoResponseDTO response = agendamentoService.criar(dados, chaveIdempotencia);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    // Resultado por item (indice, agendamento criado ou erros); itens inválidos não impedem a gravação dos demais
+    @PostMapping("/agendar/lote")
+    public ResponseEntity<ResultadoLoteDTO> agendarLote(@RequestBody @Valid AgendamentosLoteRequestDTO dados) {
+        return ResponseEntity.ok(agendamentoService.criarEmLote(dados.agendamentos()));
+    }
+
     @PostMapping("/{id}/status")
     public ResponseEntity<AgendamentoResponseDTO> atualizarStatus(@PathVariable UUID id, @RequestBody @Valid AtualizarStatusDTO atualizar) {
         AgendamentoResponseDTO novoStatus = agendamentoService.atualizarStatus(id,atualizar.status());
         return ResponseEntity.status(HttpStatus.CREATED).body(novoStatus);
     }
 
+    // Guichê chama o próximo da fila sem escolher na lista; 204 quando não há ninguém aguardando
+    @PostMapping("/chamar-proximo")
+    public ResponseEntity<AgendamentoResponseDTO> chamarProximo(@RequestParam(required = false) String tipoServico) {
+        return agendamentoService.chamarProximo(tipoServico)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    // Paginação por cursor: o próximo cursor vai no cabeçalho para manter o corpo como lista.
+    // Com ordem=ATENDIMENTO devolve os próximos aguardando na ordem em que serão chamados (sem cursor).
+    // A versão da fila vai no ETag: com If-None-Match igual a resposta é 304, sem consultar nem serializar.
+    // Com ?desde=<versão> devolve só os agendamentos alterados depois dela, sem filtros
+    // (quem saiu do filtro também precisa chegar ao cliente); 410 quando a versão já saiu do histórico.
     @GetMapping("/consultar_agendamentos")
-    public ResponseEntity<List<AgendamentoResponseDTO>> consultarAgendamentos() {
-        List<AgendamentoResponseDTO> consultar =  agendamentoService.consultar();
-        return ResponseEntity.status(HttpStatus.OK).body(consultar);
+    public ResponseEntity<List<AgendamentoResponseDTO>> consultarAgendamentos(
+            @RequestParam(required = false) StatusAgendamento status,
+            @RequestParam(required = false) String tipoServico,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(defaultValue = "CHEGADA") OrdemFila ordem,
+            @RequestParam(required = false) String desde,
+            WebRequest request) {
+        if (desde != null) {
+            FilaEventosService.AlteracoesFila alteracoes = filaEventosService.alteracoesDesde(desde)
+                    .orElseThrow(() -> new VersaoFilaExpiradaException("Versão da fila expirada, recarregue a lista completa"));
+            return ResponseEntity.ok()
+                    .header(CABECALHO_VERSAO_FILA, alteracoes.versao())
+                    .cacheControl(CacheControl.noCache())
+                    .body(alteracoes.agendamentos());
+        }
+
+        // Lida antes dos dados: se a fila mudar no meio, o cliente só recebe a mudança de novo na próxima vez
+        String versao = filaEventosService.versao();
+        if (request.checkNotModified("W/\"" + versao + "\"")) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                .header(CABECALHO_VERSAO_FILA, versao)
+                .cacheControl(CacheControl.noCache());
+
+        if (ordem == OrdemFila.ATENDIMENTO) {
+            return response.body(agendamentoService.consultarOrdemDeAtendimento(tipoServico, limite));
+        }
+
+        PaginaAgendamentosDTO pagina = agendamentoService.consultar(status, tipoServico, cursor, limite);
+        if (pagina.proximoCursor() != null) {
+            response.header(CABECALHO_PROXIMO_CURSOR, pagina.proximoCursor());
+        }
+        return response.body(pagina.agendamentos());
+    }
+
+    // Tempo previsto até ser chamado, a partir da posição na fila e da duração recente dos atendimentos
+    @GetMapping("/{id}/estimativa")
+    public ResponseEntity<EstimativaEsperaDTO> estimativa(@PathVariable UUID id) {
+        return ResponseEntity.ok(estimativaEspera.estimar(id));
+    }
+
+    // Resumo para o painel do saguão: fila e duração por tipo de serviço, guichês ativos e espera de quem chega agora
+    @GetMapping("/estimativas")
+    public ResponseEntity<ResumoEsperaDTO> resumoEstimativas() {
+        return ResponseEntity.ok(estimativaEspera.resumir());
+    }
+
+    @GetMapping("/contagem")
+    public ResponseEntity<Map<StatusAgendamento, Long>> contarPorStatus() {
+        return ResponseEntity.ok(agendamentoService.contarPorStatus());
+    }
+
+    // Token curto para o EventSource, que não envia Authorization: vai em /eventos?token= e não serve para outras rotas
+    @PostMapping("/eventos/token")
+    public ResponseEntity<TokenEventosDTO> tokenEventos(Authentication authentication) {
+        String token = tokenService.gerarTokenEventos((TokenService.TokenVerificado) authentication.getDetails());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new TokenEventosDTO(token, tokenService.getValidadeEventosSegundos()));
+    }
+
+    // Retomada: o navegador reenvia Last-Event-ID sozinho; clientes sem EventSource podem usar ?ultimoEventoId=
+    @GetMapping(path = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventos(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                              @RequestParam(required = false) String ultimoEventoId) {
+        return filaEventosService.assinar(lastEventId != null ? lastEventId : ultimoEventoId);
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/relatorio")
+    public ResponseEntity<StreamingResponseBody> relatorio() {
+        StreamingResponseBody corpo = relatorioService::gerarRelatorio;
+        return respostaPdf(relatorioService.nomeArquivo(), corpo);
+    }
+
+    // Linhas brutas da fila e dos expedientes arquivados, escritas conforme saem do cursor do banco
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "CSV") FormatoExportacao formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(required = false) StatusAgendamento status,
+            @RequestParam(required = false) String tipoServico,
+            @RequestParam(defaultValue = "false") boolean compactar) {
+        FiltroExportacaoDTO filtro = new FiltroExportacaoDTO(inicio, fim, status, tipoServico);
+        StreamingResponseBody corpo = saida -> exportacaoService.exportar(filtro, formato, compactar, saida);
+        MediaType tipo = compactar
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(formato.getTipoConteudo() + ";charset=UTF-8");
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=" + exportacaoService.nomeArquivo(formato, compactar))
+                .contentType(tipo)
+                .body(corpo);
+    }
 
+    // Fechamento roda em segundo plano: 202 com o job; repetir no mesmo dia devolve o mesmo job
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/fechar-expediente")
-    public ResponseEntity<org.springframework.core.io.Resource> fecharExpediente() {
+    public ResponseEntity<FechamentoExpedienteDTO> fecharExpediente() {
+        FechamentoExpedienteDTO fechamento = fechamentoService.solicitar();
+        return ResponseEntity.accepted()
+                .location(URI.create("/agendamentos/fechar-expediente/" + fechamento.id()))
+                .body(fechamento);
+    }
 
-        java.io.File file = agendamentoService.fecharExpediente();
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/fechar-expediente/{id}")
+    public ResponseEntity<FechamentoExpedienteDTO> consultarFechamento(@PathVariable UUID id) {
+        return ResponseEntity.ok(fechamentoService.consultar(id));
+    }
 
-        org.springframework.core.io.Resource resource =
-                new org.springframework.core.io.FileSystemResource(file);
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/fechar-expediente/{id}/relatorio")
+    public ResponseEntity<StreamingResponseBody> relatorioFechamento(@PathVariable UUID id) {
+        FechamentoExpedienteDTO fechamento = fechamentoService.verificarRelatorioPronto(id);
+        StreamingResponseBody corpo = saida -> fechamentoService.copiarRelatorio(id, saida);
+        return respostaPdf("relatorio_" + fechamento.dia() + ".pdf", corpo);
+    }
 
+    private ResponseEntity<StreamingResponseBody> respostaPdf(String nomeArquivo, StreamingResponseBody corpo) {
         return ResponseEntity.ok()
-                .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=" + file.getName())
-                .header(org.springframework.http.HttpHeaders.CONTENT_TYPE, "application/pdf")
-                .body(resource);
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=" + nomeArquivo)
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(corpo);
     }
 
 
@@ -3,52 +3,51 @@ package com.devtec.sai.controller;
 import com.devtec.sai.dto.AuthenticationDTO;
 import com.devtec.sai.dto.LoginResponseDTO;
 import com.devtec.sai.dto.RegisterDTO;
-import com.devtec.sai.model.Usuario;
-import com.devtec.sai.repository.UsuarioRepository;
-import com.devtec.sai.service.TokenService;
+import com.devtec.sai.service.AutenticacaoService;
+import com.devtec.sai.service.EpocaTokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @CrossOrigin(origins = "https://sai-api-sistema-de-agendamento-inst.vercel.app")
 @RestController
 @RequestMapping("/auth")
 public class AuthenticationController {
-    private final AuthenticationManager authenticationManager;
-    private final UsuarioRepository usuarioRepository;
-    private final TokenService tokenService;
+    private final AutenticacaoService autenticacaoService;
+    private final EpocaTokenService epocaTokenService;
 
 
-    public AuthenticationController(AuthenticationManager authenticationManager, UsuarioRepository usuarioRepository, TokenService tokenService) {
-        this.authenticationManager = authenticationManager;
-        this.usuarioRepository = usuarioRepository;
-        this.tokenService = tokenService;
+    public AuthenticationController(AutenticacaoService autenticacaoService, EpocaTokenService epocaTokenService) {
+        this.autenticacaoService = autenticacaoService;
+        this.epocaTokenService = epocaTokenService;
     }
 
 
+    // O hash roda no pool de autenticação; a thread da requisição fica livre enquanto isso
     @PostMapping("/login")
-    public ResponseEntity login(@RequestBody @Valid AuthenticationDTO data){
-        var usernamePassword = new UsernamePasswordAuthenticationToken(data.login(), data.senha());
-        var auth = authenticationManager.authenticate(usernamePassword);
-        var token = tokenService.gerarToken((Usuario) auth.getPrincipal());
-
-        return ResponseEntity.ok(new LoginResponseDTO(token));
+    public CompletableFuture<ResponseEntity<LoginResponseDTO>> login(@RequestBody @Valid AuthenticationDTO data,
+                                                                     HttpServletRequest request){
+        return autenticacaoService.login(data, request.getRemoteAddr())
+                .thenApply(token -> ResponseEntity.ok(new LoginResponseDTO(token)));
     }
 
     @PostMapping("/register")
-    public ResponseEntity register(@RequestBody @Valid RegisterDTO data){
-        if (usuarioRepository.findByLogin(data.login()) != null){
-            return ResponseEntity.badRequest().build();
-        }
-
-        String encryptedPassword = new BCryptPasswordEncoder().encode(data.senha());
-        Usuario newUser = new Usuario(data.login(), encryptedPassword, data.role());
+    public CompletableFuture<ResponseEntity<Void>> register(@RequestBody @Valid RegisterDTO data){
+        return autenticacaoService.cadastrar(data)
+                .thenApply(cadastrado -> cadastrado
+                        ? ResponseEntity.ok().<Void>build()
+                        : ResponseEntity.badRequest().<Void>build());
+    }
 
-        usuarioRepository.save(newUser);
-        return ResponseEntity.ok().build();
+    // Derruba as sessões do usuário: tokens emitidos antes desta chamada deixam de ser aceitos
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/usuarios/{login}/revogar-tokens")
+    public ResponseEntity<Void> revogarTokens(@PathVariable String login) {
+        epocaTokenService.revogar(login);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,20 @@
+package com.devtec.sai.dto;
+
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.model.StatusAgendamento;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Linha completa da exportação: inclui o rg, que não vai nas respostas da fila
+public record AgendamentoExportadoDTO(
+        UUID id,
+        String nomeSolicitante,
+        String cpf,
+        String rg,
+        String tipoServico,
+        PrioridadeAtendimento prioridade,
+        LocalDateTime dataHoraChegada,
+        StatusAgendamento status
+) {
+}
@@ -1,5 +1,7 @@
 package com.devtec.sai.dto;
 
+import com.devtec.sai.model.Agendamento;
+import com.devtec.sai.model.PrioridadeAtendimento;
 import com.devtec.sai.model.StatusAgendamento;
 
 import java.time.LocalDateTime;
@@ -10,7 +12,21 @@ public record AgendamentoResponseDTO(
        String nomeSolicitante,
        String cpf,
        String tipoServico,
+       PrioridadeAtendimento prioridade,
        LocalDateTime dataHoraChegada,
        StatusAgendamento status
 
-) {}
+) {
+
+    public static AgendamentoResponseDTO de(Agendamento agendamento) {
+        return new AgendamentoResponseDTO(
+                agendamento.getId(),
+                agendamento.getNomeSolicitante(),
+                agendamento.getCpf(),
+                agendamento.getTipoServico(),
+                agendamento.getPrioridade(),
+                agendamento.getDataHoraChegada(),
+                agendamento.getStatus()
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package com.devtec.sai.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+// Os itens são validados um a um no serviço: um item inválido não derruba o lote inteiro
+public record AgendamentosLoteRequestDTO(
+        @NotEmpty(message = "Informe ao menos um agendamento")
+        List<AgendamentosRequestDTO> agendamentos
+) {}
@@ -1,5 +1,6 @@
 package com.devtec.sai.dto;
 
+import com.devtec.sai.model.PrioridadeAtendimento;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.hibernate.validator.constraints.br.CPF;
@@ -16,6 +17,9 @@ public record AgendamentosRequestDTO(
      String rg,
 
      @NotBlank(message = "O tipo de serviço é obrigatório")
-     String tipoServico
+     String tipoServico,
+
+     // Opcional: sem valor o atendimento é NORMAL
+     PrioridadeAtendimento prioridade
 
 ) {}
@@ -0,0 +1,31 @@
+package com.devtec.sai.dto;
+
+import com.devtec.sai.exception.ParametroInvalidoException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+public record CursorAgendamentoDTO(
+        LocalDateTime dataHoraChegada,
+        UUID id
+) {
+
+    public String codificar() {
+        String valor = dataHoraChegada + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorAgendamentoDTO decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|", 2);
+            return new CursorAgendamentoDTO(LocalDateTime.parse(partes[0]), UUID.fromString(partes[1]));
+        } catch (RuntimeException e) {
+            throw new ParametroInvalidoException("Cursor de paginação inválido", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.devtec.sai.dto;
+
+import com.devtec.sai.model.StatusAgendamento;
+
+import java.util.UUID;
+
+// posicao começa em 1 (o próximo a ser chamado) e é nula quando o agendamento não está aguardando
+public record EstimativaEsperaDTO(
+        UUID id,
+        String tipoServico,
+        StatusAgendamento status,
+        Integer posicao,
+        int guichesAtivos,
+        long esperaEstimadaSegundos,
+        long esperaPessimistaSegundos
+) {
+}
@@ -0,0 +1,27 @@
+package com.devtec.sai.dto;
+
+import com.devtec.sai.model.TipoEventoBarramento;
+import com.devtec.sai.model.TipoEventoFila;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Só os campos do tipo vão no NOTIFY (limite de 8000 bytes por mensagem)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EventoBarramentoDTO(
+        TipoEventoBarramento tipo,
+        TipoEventoFila tipoFila,
+        AgendamentoResponseDTO agendamento,
+        String login
+) {
+
+    public static EventoBarramentoDTO agendamento(TipoEventoFila tipoFila, AgendamentoResponseDTO agendamento) {
+        return new EventoBarramentoDTO(TipoEventoBarramento.AGENDAMENTO, tipoFila, agendamento, null);
+    }
+
+    public static EventoBarramentoDTO usuario(String login) {
+        return new EventoBarramentoDTO(TipoEventoBarramento.USUARIO, null, null, login);
+    }
+
+    public static EventoBarramentoDTO resincronizar() {
+        return new EventoBarramentoDTO(TipoEventoBarramento.RESINCRONIZAR, null, null, null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.devtec.sai.dto;
+
+import com.devtec.sai.model.TipoEventoFila;
+
+import java.time.LocalDateTime;
+
+public record EventoFilaDTO(
+        long id,
+        TipoEventoFila tipo,
+        AgendamentoResponseDTO agendamento,
+        LocalDateTime dataHora
+) {}
@@ -0,0 +1,19 @@
+package com.devtec.sai.dto;
+
+import com.devtec.sai.model.SituacaoFechamento;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record FechamentoExpedienteDTO(
+        UUID id,
+        LocalDate dia,
+        SituacaoFechamento situacao,
+        int progresso,
+        long processados,
+        long total,
+        String erro,
+        LocalDateTime criadoEm,
+        LocalDateTime concluidoEm
+) {}
@@ -0,0 +1,24 @@
+package com.devtec.sai.dto;
+
+import com.devtec.sai.exception.ParametroInvalidoException;
+import com.devtec.sai.model.StatusAgendamento;
+
+import java.time.LocalDate;
+
+// Todos opcionais; inicio e fim são dias de chegada, ambos inclusivos
+public record FiltroExportacaoDTO(
+        LocalDate inicio,
+        LocalDate fim,
+        StatusAgendamento status,
+        String tipoServico
+) {
+
+    public FiltroExportacaoDTO {
+        if (inicio != null && fim != null && fim.isBefore(inicio)) {
+            throw new ParametroInvalidoException("fim não pode ser anterior a inicio");
+        }
+        if (tipoServico != null && tipoServico.isBlank()) {
+            tipoServico = null;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.devtec.sai.dto;
+
+import java.util.List;
+
+// Resultado de um item do lote, na mesma posição (indice) em que foi enviado
+public record ItemLoteDTO(
+        int indice,
+        AgendamentoResponseDTO agendamento,
+        List<FieldErrorDTO> erros
+) {}
@@ -0,0 +1,15 @@
+package com.devtec.sai.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// Um NOTIFY: a sequência é contínua por origem, o que deixa o ouvinte perceber mensagens perdidas.
+// As versões da fila dos eventos que alteram a fila, na ordem deles, são preenchidas pelo banco no envio.
+public record MensagemBarramentoDTO(
+        String origem,
+        long sequencia,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<Long> versoes,
+        List<EventoBarramentoDTO> eventos
+) {
+}
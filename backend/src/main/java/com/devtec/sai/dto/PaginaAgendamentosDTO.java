@@ -0,0 +1,8 @@
+package com.devtec.sai.dto;
+
+import java.util.List;
+
+public record PaginaAgendamentosDTO(
+        List<AgendamentoResponseDTO> agendamentos,
+        String proximoCursor
+) {}
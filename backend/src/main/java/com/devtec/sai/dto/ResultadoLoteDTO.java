@@ -0,0 +1,10 @@
+package com.devtec.sai.dto;
+
+import java.util.List;
+
+public record ResultadoLoteDTO(
+        int recebidos,
+        int criados,
+        int rejeitados,
+        List<ItemLoteDTO> itens
+) {}
@@ -0,0 +1,12 @@
+package com.devtec.sai.dto;
+
+import java.util.List;
+
+// Painel do saguão: esperaEstimadaSegundos é a previsão para quem chega agora
+public record ResumoEsperaDTO(
+        int guichesAtivos,
+        long aguardando,
+        long esperaEstimadaSegundos,
+        List<ResumoTipoServicoDTO> tipos
+) {
+}
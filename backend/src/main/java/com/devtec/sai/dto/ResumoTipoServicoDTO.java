@@ -0,0 +1,11 @@
+package com.devtec.sai.dto;
+
+public record ResumoTipoServicoDTO(
+        String tipoServico,
+        long aguardando,
+        long amostras,
+        long duracaoMediaSegundos,
+        long duracaoP50Segundos,
+        long duracaoP90Segundos
+) {
+}
@@ -0,0 +1,4 @@
+package com.devtec.sai.dto;
+
+public record TokenEventosDTO(String token, long validadeSegundos) {
+}
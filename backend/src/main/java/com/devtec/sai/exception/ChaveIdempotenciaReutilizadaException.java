@@ -0,0 +1,9 @@
+package com.devtec.sai.exception;
+
+// Idempotency-Key já usada com outro corpo de requisição: vira 422 em vez de devolver a resposta da primeira
+public class ChaveIdempotenciaReutilizadaException extends RuntimeException {
+
+    public ChaveIdempotenciaReutilizadaException(String message) {
+        super(message);
+    }
+}
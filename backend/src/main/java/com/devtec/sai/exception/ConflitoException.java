@@ -0,0 +1,8 @@
+package com.devtec.sai.exception;
+
+public class ConflitoException extends RuntimeException {
+
+    public ConflitoException(String message) {
+        super(message);
+    }
+}
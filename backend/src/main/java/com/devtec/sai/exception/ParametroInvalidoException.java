@@ -0,0 +1,13 @@
+package com.devtec.sai.exception;
+
+// Parâmetro enviado pelo cliente que não pode ser usado (cursor, período, tamanho de lote, chave): vira 400
+public class ParametroInvalidoException extends RuntimeException {
+
+    public ParametroInvalidoException(String message) {
+        super(message);
+    }
+
+    public ParametroInvalidoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
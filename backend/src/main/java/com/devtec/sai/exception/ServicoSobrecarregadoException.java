@@ -0,0 +1,22 @@
+package com.devtec.sai.exception;
+
+// Recusa por capacidade: vira 503 (ou 429, por login) com Retry-After
+public class ServicoSobrecarregadoException extends RuntimeException {
+
+    private final long retryAfterSegundos;
+    private final boolean porLogin;
+
+    public ServicoSobrecarregadoException(String message, long retryAfterSegundos, boolean porLogin) {
+        super(message);
+        this.retryAfterSegundos = retryAfterSegundos;
+        this.porLogin = porLogin;
+    }
+
+    public long getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+
+    public boolean isPorLogin() {
+        return porLogin;
+    }
+}
@@ -0,0 +1,9 @@
+package com.devtec.sai.exception;
+
+// Versão pedida em ?desde= já saiu do histórico (ou esta instância ainda não chegou nela): o cliente recarrega a fila inteira
+public class VersaoFilaExpiradaException extends RuntimeException {
+
+    public VersaoFilaExpiradaException(String message) {
+        super(message);
+    }
+}
@@ -10,7 +10,7 @@ import java.util.UUID;
 public class Agendamento {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdUuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -31,6 +31,10 @@ public class Agendamento {
     @Enumerated(EnumType.STRING)
     private StatusAgendamento status;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PrioridadeAtendimento prioridade = PrioridadeAtendimento.NORMAL;
+
     public Agendamento() {
 
     }
@@ -89,5 +93,13 @@ public class Agendamento {
         this.status = status;
     }
 
+    public PrioridadeAtendimento getPrioridade() {
+        return prioridade;
+    }
+
+    public void setPrioridade(PrioridadeAtendimento prioridade) {
+        this.prioridade = prioridade;
+    }
+
 }
 
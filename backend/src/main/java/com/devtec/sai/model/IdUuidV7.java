@@ -0,0 +1,16 @@
+package com.devtec.sai.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Id gerado na aplicação como UUID v7: novas linhas entram no fim do índice da chave primária
+// e a ordem dos ids acompanha a ordem de criação
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdUuidV7 {
+}
@@ -0,0 +1,8 @@
+package com.devtec.sai.model;
+
+public enum OrdemFila {
+    // Ordem de chegada, paginada por cursor
+    CHEGADA,
+    // Ordem em que os aguardando serão chamados, com a intercalação de preferenciais aplicada
+    ATENDIMENTO
+}
@@ -0,0 +1,14 @@
+package com.devtec.sai.model;
+
+// Atendimento preferencial previsto em lei: idosos, gestantes e pessoas com deficiência
+public enum PrioridadeAtendimento {
+    NORMAL,
+    IDOSO,
+    GESTANTE,
+    PCD,
+    PREFERENCIAL;
+
+    public boolean preferencial() {
+        return this != NORMAL;
+    }
+}
@@ -0,0 +1,9 @@
+package com.devtec.sai.model;
+
+public enum SituacaoFechamento {
+    PENDENTE,
+    GERANDO_RELATORIO,
+    ARQUIVANDO,
+    CONCLUIDO,
+    FALHOU
+}
@@ -1,8 +1,24 @@
 package com.devtec.sai.model;
 
+import java.util.Set;
+
 public enum StatusAgendamento {
     AGUARDANDO,
     EM_ATENDIMENTO,
     CANCELADO,
-    CONCLUIDO
+    CONCLUIDO;
+
+    // Tabela de transições: de quais status se pode chegar a este. CANCELADO e CONCLUIDO são finais.
+    public Set<StatusAgendamento> origens() {
+        return switch (this) {
+            case AGUARDANDO -> Set.of();
+            case EM_ATENDIMENTO -> Set.of(AGUARDANDO);
+            case CANCELADO -> Set.of(AGUARDANDO, EM_ATENDIMENTO);
+            case CONCLUIDO -> Set.of(EM_ATENDIMENTO);
+        };
+    }
+
+    public boolean podeIrPara(StatusAgendamento destino) {
+        return destino.origens().contains(this);
+    }
 }
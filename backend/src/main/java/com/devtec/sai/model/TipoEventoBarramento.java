@@ -0,0 +1,16 @@
+package com.devtec.sai.model;
+
+// Mudanças que as outras instâncias precisam aplicar no próprio estado em memória
+public enum TipoEventoBarramento {
+    // Agendamento criado ou com status alterado: índice da fila, SSE e estimativa de espera
+    AGENDAMENTO,
+    // Usuário cadastrado ou alterado: a época dos tokens do login precisa ser relida
+    USUARIO,
+    // Fila trocada inteira (fechamento do expediente): recarregar o índice do banco
+    RESINCRONIZAR;
+
+    // Os que mudam a fila recebem uma versão da fila
+    public boolean alteraFila() {
+        return this != USUARIO;
+    }
+}
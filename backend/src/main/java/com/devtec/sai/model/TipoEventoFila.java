@@ -0,0 +1,9 @@
+package com.devtec.sai.model;
+
+public enum TipoEventoFila {
+    CRIADO,
+    STATUS_ALTERADO,
+    // Enviado quando o cliente pediu para retomar de um evento que já saiu do histórico
+    // ou quando a fila foi trocada inteira (fechamento do expediente)
+    RESINCRONIZAR
+}
@@ -1,5 +1,6 @@
 package com.devtec.sai.model;
 
+import com.devtec.sai.config.UsuarioEpocaListener;
 import jakarta.persistence.*;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -12,10 +13,11 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "tb_usuarios")
+@EntityListeners(UsuarioEpocaListener.class)
 public class Usuario implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdUuidV7
     private UUID id;
 
     @Column(name = "login")
@@ -27,6 +29,11 @@ public class Usuario implements UserDetails {
     @Enumerated(EnumType.STRING)
     private UserRole role;
 
+    // Vai em cada token emitido; tokens com época anterior deixam de valer.
+    // Só o banco grava: o trigger incrementa na troca de perfil ou senha e a revogação soma direto na coluna.
+    @Column(name = "epoca_token", nullable = false, insertable = false, updatable = false)
+    private int epocaToken;
+
     public Usuario(){
 
     }
@@ -60,6 +67,18 @@ public class Usuario implements UserDetails {
         return role;
     }
 
+    public int getEpocaToken() {
+        return epocaToken;
+    }
+
+    public void alterarRole(UserRole role) {
+        this.role = role;
+    }
+
+    public void alterarSenha(String senhaEncrypted) {
+        this.senha = senhaEncrypted;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,55 @@
+package com.devtec.sai.repository;
+
+import com.devtec.sai.dto.CursorAgendamentoDTO;
+import com.devtec.sai.model.Agendamento;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.model.StatusAgendamento;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Filtros da fila montados só com os critérios informados, para que o Postgres use os índices da V4
+public final class AgendamentoSpecifications {
+
+    private AgendamentoSpecifications() {
+    }
+
+    public static Specification<Agendamento> comStatus(StatusAgendamento status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Agendamento> comTipoServico(String tipoServico) {
+        return (root, query, cb) -> tipoServico == null || tipoServico.isBlank()
+                ? null
+                : cb.equal(root.get("tipoServico"), tipoServico);
+    }
+
+    public static Specification<Agendamento> comPreferencial(Boolean preferencial) {
+        return (root, query, cb) -> {
+            if (preferencial == null) return null;
+            return preferencial
+                    ? cb.notEqual(root.get("prioridade"), PrioridadeAtendimento.NORMAL)
+                    : cb.equal(root.get("prioridade"), PrioridadeAtendimento.NORMAL);
+        };
+    }
+
+    // Keyset: (data_hora_chegada, id) > (cursor.dataHoraChegada, cursor.id)
+    public static Specification<Agendamento> aposCursor(CursorAgendamentoDTO cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) return null;
+
+            Path<LocalDateTime> chegada = root.get("dataHoraChegada");
+            Path<UUID> id = root.get("id");
+
+            return cb.and(
+                    cb.greaterThanOrEqualTo(chegada, cursor.dataHoraChegada()),
+                    cb.or(
+                            cb.greaterThan(chegada, cursor.dataHoraChegada()),
+                            cb.greaterThan(id, cursor.id())
+                    )
+            );
+        };
+    }
+}
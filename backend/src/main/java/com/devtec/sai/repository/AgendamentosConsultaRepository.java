@@ -0,0 +1,14 @@
+package com.devtec.sai.repository;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.model.Agendamento;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+// Leituras da fila direto no DTO de resposta: sem entidades gerenciadas nem dirty checking
+public interface AgendamentosConsultaRepository {
+
+    // Na ordem da fila (data_hora_chegada, id), no máximo 'limite' linhas
+    List<AgendamentoResponseDTO> consultarResumo(Specification<Agendamento> filtro, int limite);
+}
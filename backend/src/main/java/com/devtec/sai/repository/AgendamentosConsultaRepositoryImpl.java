@@ -0,0 +1,51 @@
+package com.devtec.sai.repository;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.model.Agendamento;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Expressão de construtor: o SELECT traz só as colunas do DTO (rg fica de fora) e nada entra no contexto de persistência.
+// readOnly deixa a sessão sem flush automático.
+@Transactional(readOnly = true)
+public class AgendamentosConsultaRepositoryImpl implements AgendamentosConsultaRepository {
+
+    private final EntityManager entityManager;
+
+    public AgendamentosConsultaRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<AgendamentoResponseDTO> consultarResumo(Specification<Agendamento> filtro, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AgendamentoResponseDTO> query = cb.createQuery(AgendamentoResponseDTO.class);
+        Root<Agendamento> root = query.from(Agendamento.class);
+
+        query.select(cb.construct(AgendamentoResponseDTO.class,
+                root.get("id"),
+                root.get("nomeSolicitante"),
+                root.get("cpf"),
+                root.get("tipoServico"),
+                root.get("prioridade"),
+                root.get("dataHoraChegada"),
+                root.get("status")));
+
+        Predicate predicado = filtro == null ? null : filtro.toPredicate(root, query, cb);
+        if (predicado != null) {
+            query.where(predicado);
+        }
+        query.orderBy(cb.asc(root.get("dataHoraChegada")), cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+}
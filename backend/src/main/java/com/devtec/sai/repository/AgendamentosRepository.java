@@ -1,10 +1,128 @@
 package com.devtec.sai.repository;
 
 import com.devtec.sai.model.Agendamento;
+import com.devtec.sai.model.StatusAgendamento;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface AgendamentosRepository extends JpaRepository<Agendamento, UUID> {
+public interface AgendamentosRepository extends JpaRepository<Agendamento, UUID>, JpaSpecificationExecutor<Agendamento>,
+        AgendamentosConsultaRepository {
+
+    // Chama o mais antigo aguardando de cada classe num único comando: a subconsulta trava a linha (linhas já travadas
+    // por outro guichê são puladas em vez de esperar) e o UPDATE a devolve já EM_ATENDIMENTO.
+    // Os predicados de prioridade são literais para casar com os índices parciais da V5.
+    @Query(value = """
+            UPDATE tb_agendamentos SET status = 'EM_ATENDIMENTO'
+            WHERE (id, data_hora_chegada) = (
+                SELECT id, data_hora_chegada FROM tb_agendamentos
+                WHERE status = 'AGUARDANDO' AND prioridade <> 'NORMAL'
+                  AND (CAST(:tipoServico AS VARCHAR) IS NULL OR tipo_servico = :tipoServico)
+                ORDER BY data_hora_chegada, id
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<Agendamento> chamarProximoPreferencial(@Param("tipoServico") String tipoServico);
+
+    @Query(value = """
+            UPDATE tb_agendamentos SET status = 'EM_ATENDIMENTO'
+            WHERE (id, data_hora_chegada) = (
+                SELECT id, data_hora_chegada FROM tb_agendamentos
+                WHERE status = 'AGUARDANDO' AND prioridade = 'NORMAL'
+                  AND (CAST(:tipoServico AS VARCHAR) IS NULL OR tipo_servico = :tipoServico)
+                ORDER BY data_hora_chegada, id
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<Agendamento> chamarProximoRegular(@Param("tipoServico") String tipoServico);
+
+    // Transição condicional: só altera se o status atual for uma das origens permitidas.
+    // Vazio quando o agendamento não existe ou está em outro status (outro guichê chegou antes).
+    @Query(value = """
+            UPDATE tb_agendamentos SET status = :novoStatus
+            WHERE id = :id AND status IN (:origens)
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<Agendamento> transicionarStatus(@Param("id") UUID id, @Param("novoStatus") String novoStatus,
+                                             @Param("origens") Collection<String> origens);
+
+    @Query("select a.status from Agendamento a where a.id = :id")
+    Optional<StatusAgendamento> buscarStatus(@Param("id") UUID id);
+
+    @Query("select a.status as status, count(a) as total from Agendamento a group by a.status")
+    List<ContagemStatus> contarPorStatus();
+
+    @Query("select a.status as status, a.tipoServico as tipoServico, count(a) as total from Agendamento a group by a.status, a.tipoServico")
+    List<ContagemStatusTipo> contarPorStatusETipo();
+
+    @Query("select a.id as id, a.status as status from Agendamento a")
+    List<SituacaoAgendamento> listarSituacoes();
+
+    // Estimativa de espera sem o índice em memória: aguardando que chegaram antes da chave, por classe e tipo
+    @Query(value = """
+            SELECT prioridade <> 'NORMAL' AS preferencial, tipo_servico AS tipoServico, count(*) AS total
+            FROM tb_agendamentos
+            WHERE status = 'AGUARDANDO' AND (data_hora_chegada, id) < (:chegada, :id)
+            GROUP BY 1, 2
+            """, nativeQuery = true)
+    List<ContagemClasseTipo> contarAguardandoAntes(@Param("chegada") LocalDateTime chegada, @Param("id") UUID id);
+
+    // Tipos dos próximos 'quantidade' de cada classe na ordem de chamada (predicados literais pelos índices da V5)
+    @Query(value = """
+            SELECT tipo_servico AS tipoServico, count(*) AS total FROM (
+                SELECT tipo_servico FROM tb_agendamentos
+                WHERE status = 'AGUARDANDO' AND prioridade <> 'NORMAL'
+                ORDER BY data_hora_chegada, id
+                LIMIT :quantidade) proximos
+            GROUP BY tipo_servico
+            """, nativeQuery = true)
+    List<ContagemTipo> contarProximosPreferenciais(@Param("quantidade") long quantidade);
+
+    @Query(value = """
+            SELECT tipo_servico AS tipoServico, count(*) AS total FROM (
+                SELECT tipo_servico FROM tb_agendamentos
+                WHERE status = 'AGUARDANDO' AND prioridade = 'NORMAL'
+                ORDER BY data_hora_chegada, id
+                LIMIT :quantidade) proximos
+            GROUP BY tipo_servico
+            """, nativeQuery = true)
+    List<ContagemTipo> contarProximosRegulares(@Param("quantidade") long quantidade);
+
+    interface ContagemStatus {
+        StatusAgendamento getStatus();
+        long getTotal();
+    }
+
+    interface ContagemStatusTipo {
+        StatusAgendamento getStatus();
+        String getTipoServico();
+        long getTotal();
+    }
+
+    interface ContagemTipo {
+        String getTipoServico();
+        long getTotal();
+    }
+
+    interface ContagemClasseTipo {
+        boolean getPreferencial();
+        String getTipoServico();
+        long getTotal();
+    }
+
+    interface SituacaoAgendamento {
+        UUID getId();
+        StatusAgendamento getStatus();
+    }
 }
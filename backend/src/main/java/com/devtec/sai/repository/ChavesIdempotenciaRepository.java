@@ -0,0 +1,45 @@
+package com.devtec.sai.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+// Chaves de idempotência já usadas, o hash do corpo da requisição e a resposta JSON devolvida na primeira vez
+// (tabela da V8, hash da V11)
+@Repository
+public class ChavesIdempotenciaRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChavesIdempotenciaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<ChaveRegistrada> buscar(String chave) {
+        return jdbcTemplate.query("SELECT hash_requisicao, resposta FROM tb_chaves_idempotencia WHERE chave = ?",
+                        (rs, linha) -> new ChaveRegistrada(rs.getString("hash_requisicao"), rs.getString("resposta")), chave)
+                .stream()
+                .findFirst();
+    }
+
+    // false quando a chave já existe. Se outra transação estiver gravando a mesma chave,
+    // o INSERT espera ela terminar: quem chega depois sempre enxerga a resposta confirmada.
+    public boolean registrar(String chave, String hashRequisicao, UUID agendamentoId, String resposta) {
+        return jdbcTemplate.update("""
+                INSERT INTO tb_chaves_idempotencia (chave, hash_requisicao, agendamento_id, resposta) VALUES (?, ?, ?, ?)
+                ON CONFLICT (chave) DO NOTHING
+                """, chave, hashRequisicao, agendamentoId, resposta) == 1;
+    }
+
+    public int removerAnteriores(LocalDateTime limite) {
+        return jdbcTemplate.update("DELETE FROM tb_chaves_idempotencia WHERE criado_em < ?", Timestamp.valueOf(limite));
+    }
+
+    // hashRequisicao é nulo nas chaves gravadas antes da V11
+    public record ChaveRegistrada(String hashRequisicao, String resposta) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.devtec.sai.repository;
+
+import com.devtec.sai.dto.AgendamentoExportadoDTO;
+import com.devtec.sai.dto.FiltroExportacaoDTO;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.model.StatusAgendamento;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Lê a fila atual e os expedientes arquivados (tb_agendamentos_historico) com um cursor do servidor:
+// dentro de transação e com fetch size o driver do Postgres busca sai.exportacao.fetch-size linhas por vez,
+// então a memória não depende do tamanho da exportação.
+@Repository
+public class ExportacaoAgendamentosRepository {
+
+    private static final String COLUNAS = "id, nome_solicitante, cpf, rg, tipo_servico, prioridade, data_hora_chegada, status";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportacaoAgendamentosRepository(DataSource dataSource,
+                                            @Value("${sai.exportacao.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    // Entrega as linhas em ordem de chegada e devolve quantas foram lidas
+    @Transactional(readOnly = true)
+    public long percorrer(FiltroExportacaoDTO filtro, Consumer<AgendamentoExportadoDTO> consumidor) {
+        List<Object> parametros = new ArrayList<>();
+        String condicoes = condicoes(filtro, parametros);
+
+        List<Object> todos = new ArrayList<>(parametros);
+        todos.addAll(parametros);
+
+        String sql = "SELECT " + COLUNAS + " FROM tb_agendamentos" + condicoes
+                + " UNION ALL SELECT " + COLUNAS + " FROM tb_agendamentos_historico" + condicoes
+                + " ORDER BY data_hora_chegada, id";
+
+        long[] lidas = {0};
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            consumidor.accept(new AgendamentoExportadoDTO(
+                    rs.getObject("id", UUID.class),
+                    rs.getString("nome_solicitante"),
+                    rs.getString("cpf"),
+                    rs.getString("rg"),
+                    rs.getString("tipo_servico"),
+                    PrioridadeAtendimento.valueOf(rs.getString("prioridade")),
+                    rs.getTimestamp("data_hora_chegada").toLocalDateTime(),
+                    StatusAgendamento.valueOf(rs.getString("status"))));
+            lidas[0]++;
+        }, todos.toArray());
+        return lidas[0];
+    }
+
+    // Intervalo aberto no fim ("< fim + 1 dia") para a poda de partições usar o índice de chegada
+    private static String condicoes(FiltroExportacaoDTO filtro, List<Object> parametros) {
+        List<String> condicoes = new ArrayList<>();
+        if (filtro.inicio() != null) {
+            condicoes.add("data_hora_chegada >= ?");
+            parametros.add(Timestamp.valueOf(filtro.inicio().atStartOfDay()));
+        }
+        if (filtro.fim() != null) {
+            condicoes.add("data_hora_chegada < ?");
+            parametros.add(Timestamp.valueOf(filtro.fim().plusDays(1).atStartOfDay()));
+        }
+        if (filtro.status() != null) {
+            condicoes.add("status = ?");
+            parametros.add(filtro.status().name());
+        }
+        if (filtro.tipoServico() != null) {
+            condicoes.add("tipo_servico = ?");
+            parametros.add(filtro.tipoServico());
+        }
+        return condicoes.isEmpty() ? "" : " WHERE " + String.join(" AND ", condicoes);
+    }
+}
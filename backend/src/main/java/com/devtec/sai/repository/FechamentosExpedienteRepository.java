@@ -0,0 +1,130 @@
+package com.devtec.sai.repository;
+
+import com.devtec.sai.dto.FechamentoExpedienteDTO;
+import com.devtec.sai.model.SituacaoFechamento;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+// Jobs de fechamento de expediente e o PDF de cada um (tabela da V12)
+@Repository
+public class FechamentosExpedienteRepository {
+
+    private static final String COLUNAS =
+            "id, dia, situacao, progresso, processados, total, erro, criado_em, concluido_em";
+
+    private static final RowMapper<FechamentoExpedienteDTO> FECHAMENTO = (rs, linha) -> new FechamentoExpedienteDTO(
+            rs.getObject("id", UUID.class),
+            rs.getObject("dia", LocalDate.class),
+            SituacaoFechamento.valueOf(rs.getString("situacao")),
+            rs.getInt("progresso"),
+            rs.getLong("processados"),
+            rs.getLong("total"),
+            rs.getString("erro"),
+            rs.getObject("criado_em", LocalDateTime.class),
+            rs.getObject("concluido_em", LocalDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FechamentosExpedienteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // false quando o dia já tem um fechamento que não falhou (de qualquer instância)
+    public boolean criar(UUID id, LocalDate dia) {
+        return jdbcTemplate.update("""
+                INSERT INTO tb_fechamentos_expediente (id, dia, situacao) VALUES (?, ?, 'PENDENTE')
+                ON CONFLICT (dia) WHERE situacao <> 'FALHOU' DO NOTHING
+                """, id, Date.valueOf(dia)) == 1;
+    }
+
+    public Optional<FechamentoExpedienteDTO> buscar(UUID id) {
+        return jdbcTemplate.query("SELECT " + COLUNAS + " FROM tb_fechamentos_expediente WHERE id = ?", FECHAMENTO, id)
+                .stream()
+                .findFirst();
+    }
+
+    public Optional<FechamentoExpedienteDTO> buscarDoDia(LocalDate dia) {
+        return jdbcTemplate.query("SELECT " + COLUNAS + " FROM tb_fechamentos_expediente WHERE dia = ? AND situacao <> 'FALHOU'",
+                        FECHAMENTO, Date.valueOf(dia))
+                .stream()
+                .findFirst();
+    }
+
+    // Job em andamento sem notícia há 'minutos' ficou com uma instância que parou: libera o dia
+    public int falharAbandonados(LocalDate dia, long minutos) {
+        return jdbcTemplate.update("""
+                UPDATE tb_fechamentos_expediente
+                SET situacao = 'FALHOU', erro = 'Fechamento interrompido', concluido_em = now()
+                WHERE dia = ? AND situacao NOT IN ('CONCLUIDO', 'FALHOU')
+                  AND atualizado_em < now() - make_interval(mins => ?)
+                """, Date.valueOf(dia), (int) minutos);
+    }
+
+    public void atualizar(UUID id, SituacaoFechamento situacao, int progresso, long processados, long total) {
+        jdbcTemplate.update("""
+                UPDATE tb_fechamentos_expediente
+                SET situacao = ?, progresso = ?, processados = ?, total = ?, atualizado_em = now()
+                WHERE id = ?
+                """, situacao.name(), progresso, processados, total, id);
+    }
+
+    public void guardarRelatorio(UUID id, Path arquivo) {
+        try (InputStream relatorio = Files.newInputStream(arquivo)) {
+            long tamanho = Files.size(arquivo);
+            jdbcTemplate.update("""
+                    UPDATE tb_fechamentos_expediente
+                    SET relatorio = ?, atualizado_em = now()
+                    WHERE id = ?
+                    """, ps -> {
+                ps.setBinaryStream(1, relatorio, tamanho);
+                ps.setObject(2, id);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void concluir(UUID id) {
+        jdbcTemplate.update("""
+                UPDATE tb_fechamentos_expediente
+                SET situacao = 'CONCLUIDO', progresso = 100, atualizado_em = now(), concluido_em = now()
+                WHERE id = ?
+                """, id);
+    }
+
+    public void falhar(UUID id, String erro) {
+        jdbcTemplate.update("""
+                UPDATE tb_fechamentos_expediente
+                SET situacao = 'FALHOU', erro = ?, atualizado_em = now(), concluido_em = now()
+                WHERE id = ?
+                """, erro, id);
+    }
+
+    public void copiarRelatorio(UUID id, OutputStream destino) {
+        jdbcTemplate.query("SELECT relatorio FROM tb_fechamentos_expediente WHERE id = ? AND relatorio IS NOT NULL", rs -> {
+            try (InputStream relatorio = rs.getBinaryStream("relatorio")) {
+                relatorio.transferTo(destino);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, id);
+    }
+
+    public int removerConcluidosAntes(LocalDateTime limite) {
+        return jdbcTemplate.update("DELETE FROM tb_fechamentos_expediente WHERE concluido_em < ?", Timestamp.valueOf(limite));
+    }
+}
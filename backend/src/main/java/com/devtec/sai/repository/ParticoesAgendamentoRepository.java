@@ -0,0 +1,36 @@
+package com.devtec.sai.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+// Manutenção das partições diárias de tb_agendamentos (funções criadas na V6)
+@Repository
+public class ParticoesAgendamentoRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ParticoesAgendamentoRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Garante as partições do dia informado e do dia seguinte
+    public void prepararParticoes(LocalDate dia) {
+        jdbcTemplate.queryForObject("SELECT CAST(sai_preparar_particoes_agendamentos(?) AS TEXT)", String.class, Date.valueOf(dia));
+    }
+
+    // Até o fim da transação ninguém grava em tb_agendamentos (leituras seguem). Mesmo lock consultivo e na
+    // mesma ordem das funções da V6, para não travar em ciclo com a criação de partições.
+    public void bloquearEscritas() {
+        jdbcTemplate.queryForObject("SELECT CAST(pg_advisory_xact_lock(hashtext('sai_particoes_agendamentos')) AS TEXT)", String.class);
+        jdbcTemplate.execute("LOCK TABLE tb_agendamentos IN SHARE MODE");
+    }
+
+    // Move as partições com linhas para tb_agendamentos_historico e devolve quantas foram arquivadas
+    public int arquivarExpediente(LocalDate dia) {
+        Integer arquivadas = jdbcTemplate.queryForObject("SELECT sai_arquivar_expediente(?)", Integer.class, Date.valueOf(dia));
+        return arquivadas == null ? 0 : arquivadas;
+    }
+}
@@ -2,10 +2,20 @@ package com.devtec.sai.repository;
 
 import com.devtec.sai.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.Optional;
 import java.util.UUID;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, UUID> {
     UserDetails findByLogin(String login);
+
+    @Query("SELECT u.epocaToken FROM Usuario u WHERE u.login = :login")
+    Optional<Integer> buscarEpocaToken(String login);
+
+    @Modifying
+    @Query("UPDATE Usuario u SET u.epocaToken = u.epocaToken + 1 WHERE u.login = :login")
+    int incrementarEpocaToken(String login);
 }
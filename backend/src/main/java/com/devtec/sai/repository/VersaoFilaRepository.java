@@ -0,0 +1,33 @@
+package com.devtec.sai.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Versões da fila tiradas da sai_versao_fila_seq (V14), crescentes mas com buracos
+@Repository
+public class VersaoFilaRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VersaoFilaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Long> reservar(int quantidade) {
+        return jdbcTemplate.queryForList("SELECT nextval('sai_versao_fila_seq') FROM generate_series(1, ?)",
+                Long.class, quantidade);
+    }
+
+    public long reservar() {
+        return jdbcTemplate.queryForObject("SELECT nextval('sai_versao_fila_seq')", Long.class);
+    }
+
+    // Última versão reservada, não necessariamente confirmada
+    public long atual() {
+        return jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM sai_versao_fila_seq",
+                Long.class);
+    }
+}
@@ -2,90 +2,331 @@ package com.devtec.sai.service;
 
 import com.devtec.sai.dto.AgendamentoResponseDTO;
 import com.devtec.sai.dto.AgendamentosRequestDTO;
+import com.devtec.sai.dto.CursorAgendamentoDTO;
+import com.devtec.sai.dto.EventoBarramentoDTO;
+import com.devtec.sai.dto.FieldErrorDTO;
+import com.devtec.sai.dto.ItemLoteDTO;
+import com.devtec.sai.dto.PaginaAgendamentosDTO;
+import com.devtec.sai.dto.ResultadoLoteDTO;
+import com.devtec.sai.exception.ConflitoException;
+import com.devtec.sai.exception.ParametroInvalidoException;
+import com.devtec.sai.exception.RecursoNaoEncontradoException;
 import com.devtec.sai.model.Agendamento;
+import com.devtec.sai.model.PrioridadeAtendimento;
 import com.devtec.sai.model.StatusAgendamento;
+import com.devtec.sai.model.TipoEventoFila;
+import com.devtec.sai.repository.AgendamentoSpecifications;
 import com.devtec.sai.repository.AgendamentosRepository;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.LongSupplier;
 
 @Service
 public class AgendamentoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AgendamentoService.class);
+
     private final AgendamentosRepository repository;
-    private final RelatorioService relatorioService;
+    private final FilaEventosService filaEventosService;
+    private final IndiceFilaService indiceFila;
+    private final MetricasFilaService metricas;
+    private final EstimativaEsperaService estimativaEspera;
+    private final BarramentoEventosService barramento;
+    private final IdempotenciaService idempotencia;
+    private final Validator validator;
+    private final TransactionTemplate transacao;
+
+    @Value("${sai.fila.pagina.limite-padrao:100}")
+    private int limitePadrao;
+
+    @Value("${sai.fila.pagina.limite-maximo:500}")
+    private int limiteMaximo;
+
+    @Value("${sai.agendamentos.lote.maximo:1000}")
+    private int loteMaximo;
 
-    public AgendamentoService(AgendamentosRepository repository, RelatorioService relatorioService) {
+    // Itens gravados por transação; os INSERTs de cada transação saem em lotes de hibernate.jdbc.batch_size
+    @Value("${sai.agendamentos.lote.por-transacao:500}")
+    private int lotePorTransacao;
+
+    public AgendamentoService(AgendamentosRepository repository, FilaEventosService filaEventosService,
+                              IndiceFilaService indiceFila, MetricasFilaService metricas, EstimativaEsperaService estimativaEspera,
+                              BarramentoEventosService barramento, IdempotenciaService idempotencia, Validator validator, PlatformTransactionManager transactionManager) {
         this.repository = repository;
-        this.relatorioService = relatorioService;
+        this.filaEventosService = filaEventosService;
+        this.indiceFila = indiceFila;
+        this.metricas = metricas;
+        this.estimativaEspera = estimativaEspera;
+        this.barramento = barramento;
+        this.idempotencia = idempotencia;
+        this.validator = validator;
+        this.transacao = new TransactionTemplate(transactionManager);
     }
 
     public AgendamentoResponseDTO criar(AgendamentosRequestDTO dados) {
-        Agendamento agendamento = new Agendamento();
-        agendamento.setNomeSolicitante(dados.nomeSolicitante());
-        agendamento.setCpf(dados.cpf());
-        agendamento.setRg(dados.rg());
-        agendamento.setTipoServico(dados.tipoServico());
-        agendamento.setStatus(StatusAgendamento.AGUARDANDO);
+        Agendamento agendamentoSalvo = repository.save(novoAgendamento(dados));
 
-        Agendamento agendamentoSalvo = repository.save(agendamento);
+        AgendamentoResponseDTO response = AgendamentoResponseDTO.de(agendamentoSalvo);
+        notificar(TipoEventoFila.CRIADO, response);
+        return response;
+    }
 
-        return new AgendamentoResponseDTO(
-                agendamentoSalvo.getId(),
-                agendamentoSalvo.getNomeSolicitante(),
-                agendamentoSalvo.getCpf(),
-                agendamentoSalvo.getTipoServico(),
-                agendamentoSalvo.getDataHoraChegada(),
-                agendamentoSalvo.getStatus()
-        );
+    // Repetição com a mesma Idempotency-Key e o mesmo corpo devolve a resposta original sem gravar de novo;
+    // com outro corpo é recusada (422).
+    // A chave é gravada na mesma transação do agendamento; se outra instância gravou antes, esta transação
+    // é desfeita e a resposta dela é devolvida.
+    public AgendamentoResponseDTO criar(AgendamentosRequestDTO dados, String chaveIdempotencia) {
+        if (chaveIdempotencia == null) {
+            return criar(dados);
+        }
+
+        return idempotencia.executar(chaveIdempotencia, dados, () -> transacao.execute(status -> {
+            AgendamentoResponseDTO response = AgendamentoResponseDTO.de(repository.saveAndFlush(novoAgendamento(dados)));
+            if (!idempotencia.registrar(chaveIdempotencia, dados, response)) {
+                status.setRollbackOnly();
+                return idempotencia.respostaRegistrada(chaveIdempotencia, dados).orElseThrow();
+            }
+            notificar(TipoEventoFila.CRIADO, response);
+            return response;
+        }));
     }
 
-    public List<AgendamentoResponseDTO> consultar() {
+    // Importação de listas e envio acumulado dos totens: valida todos os itens, grava os válidos
+    // em transações de até lotePorTransacao itens e devolve o resultado de cada item na ordem recebida.
+    // Se uma transação falhar, só os itens dela são marcados com erro.
+    public ResultadoLoteDTO criarEmLote(List<AgendamentosRequestDTO> lote) {
+        if (lote.size() > loteMaximo) {
+            throw new ParametroInvalidoException("O lote aceita no máximo " + loteMaximo + " agendamentos");
+        }
 
-        List<Agendamento> agendamentos = repository.findAll();
+        ItemLoteDTO[] itens = new ItemLoteDTO[lote.size()];
+        List<Integer> validos = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            List<FieldErrorDTO> erros = validar(lote.get(i));
+            if (erros.isEmpty()) {
+                validos.add(i);
+            } else {
+                itens[i] = new ItemLoteDTO(i, null, erros);
+            }
+        }
 
-        return agendamentos.stream()
-                .map(agendamento -> new AgendamentoResponseDTO(
-                        agendamento.getId(),
-                        agendamento.getNomeSolicitante(),
-                        agendamento.getCpf(),
-                        agendamento.getTipoServico(),
-                        agendamento.getDataHoraChegada(),
-                        agendamento.getStatus()
-                ))
-                .toList();
+        for (int inicio = 0; inicio < validos.size(); inicio += lotePorTransacao) {
+            List<Integer> indices = validos.subList(inicio, Math.min(inicio + lotePorTransacao, validos.size()));
+            try {
+                List<AgendamentoResponseDTO> criados = transacao.execute(status -> gravarLote(lote, indices));
+                for (int j = 0; j < indices.size(); j++) {
+                    itens[indices.get(j)] = new ItemLoteDTO(indices.get(j), criados.get(j), List.of());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao gravar {} agendamentos do lote", indices.size(), e);
+                List<FieldErrorDTO> erro = List.of(new FieldErrorDTO(null, "Não foi possível gravar o agendamento"));
+                indices.forEach(indice -> itens[indice] = new ItemLoteDTO(indice, null, erro));
+            }
+        }
+
+        int criados = (int) Arrays.stream(itens).filter(item -> item.agendamento() != null).count();
+        return new ResultadoLoteDTO(lote.size(), criados, lote.size() - criados, Arrays.asList(itens));
+    }
+
+    public PaginaAgendamentosDTO consultar(StatusAgendamento status, String tipoServico, String cursor, Integer limite) {
+
+        int tamanho = limite == null ? limitePadrao : Math.max(1, Math.min(limite, limiteMaximo));
+        CursorAgendamentoDTO posicao = CursorAgendamentoDTO.decodificar(cursor);
+
+        // Busca um registro a mais só para saber se existe próxima página
+        List<AgendamentoResponseDTO> agendamentos = indiceFila.disponivel()
+                ? indiceFila.consultar(status, tipoServico, posicao, tamanho + 1)
+                : consultarNoBanco(status, tipoServico, posicao, tamanho + 1);
+
+        boolean temMais = agendamentos.size() > tamanho;
+        List<AgendamentoResponseDTO> pagina = temMais ? agendamentos.subList(0, tamanho) : agendamentos;
+
+        String proximoCursor = null;
+        if (temMais) {
+            AgendamentoResponseDTO ultimo = pagina.get(pagina.size() - 1);
+            proximoCursor = new CursorAgendamentoDTO(ultimo.dataHoraChegada(), ultimo.id()).codificar();
+        }
+
+        return new PaginaAgendamentosDTO(pagina, proximoCursor);
     }
 
+    // Próximos a serem chamados, já com a intercalação preferencial/regular aplicada
+    public List<AgendamentoResponseDTO> consultarOrdemDeAtendimento(String tipoServico, Integer limite) {
+        int tamanho = limite == null ? limitePadrao : Math.max(1, Math.min(limite, limiteMaximo));
+
+        if (indiceFila.disponivel()) {
+            return indiceFila.ordemDeAtendimento(tipoServico, tamanho);
+        }
+
+        List<AgendamentoResponseDTO> preferenciais = consultarAguardandoNoBanco(tipoServico, true, tamanho);
+        List<AgendamentoResponseDTO> regulares = consultarAguardandoNoBanco(tipoServico, false, tamanho);
+        return indiceFila.intercalar(preferenciais, regulares, tamanho);
+    }
+
+    public Map<StatusAgendamento, Long> contarPorStatus() {
+        if (indiceFila.disponivel()) {
+            return indiceFila.contarPorStatus();
+        }
+
+        Map<StatusAgendamento, Long> contagem = new EnumMap<>(StatusAgendamento.class);
+        for (StatusAgendamento status : StatusAgendamento.values()) {
+            contagem.put(status, 0L);
+        }
+        repository.contarPorStatus().forEach(item -> contagem.put(item.getStatus(), item.getTotal()));
+        return contagem;
+    }
+
+    // Um único UPDATE condicional: dois guichês mexendo no mesmo agendamento não se sobrescrevem,
+    // o segundo recebe 409. O status atual só é lido quando a transição não acontece, para escolher entre 404 e 409.
+    @Transactional
     public AgendamentoResponseDTO atualizarStatus(UUID id, StatusAgendamento novoStatus) {
+        List<String> origens = novoStatus.origens().stream().map(Enum::name).toList();
+
+        Optional<Agendamento> atualizado = origens.isEmpty()
+                ? Optional.empty()
+                : repository.transicionarStatus(id, novoStatus.name(), origens);
 
-        Agendamento agendamento = repository.findById(id)
-                .orElseThrow(()-> new RuntimeException("Agendamento não encontrado"));
+        AgendamentoResponseDTO response = AgendamentoResponseDTO.de(atualizado.orElseThrow(() -> {
+            StatusAgendamento atual = repository.buscarStatus(id)
+                    .orElseThrow(() -> new RecursoNaoEncontradoException("Agendamento não encontrado"));
+            return new ConflitoException("Agendamento está " + atual + " e não pode passar para " + novoStatus);
+        }));
+        notificar(TipoEventoFila.STATUS_ALTERADO, response);
+        return response;
+    }
 
-        agendamento.setStatus(novoStatus);
+    // Vários guichês podem chamar ao mesmo tempo: cada um trava e atualiza uma linha diferente (SKIP LOCKED).
+    // A classe (preferencial ou regular) segue a intercalação; se a classe da vez estiver vazia, usa a outra.
+    @Transactional
+    public Optional<AgendamentoResponseDTO> chamarProximo(String tipoServico) {
+        String tipo = tipoServico == null || tipoServico.isBlank() ? null : tipoServico;
 
-        Agendamento atualizado = repository.save(agendamento);
+        FilaPrioridade.Vez vez = indiceFila.reservarVez();
+        Optional<Agendamento> proximo = vez.preferencial()
+                ? repository.chamarProximoPreferencial(tipo).or(() -> repository.chamarProximoRegular(tipo))
+                : repository.chamarProximoRegular(tipo).or(() -> repository.chamarProximoPreferencial(tipo));
+        if (proximo.isEmpty()) {
+            indiceFila.desfazerVez(vez);
+        }
 
-        return new AgendamentoResponseDTO(
-                atualizado.getId(),
-                atualizado.getNomeSolicitante(),
-                atualizado.getCpf(),
-                atualizado.getTipoServico(),
-                atualizado.getDataHoraChegada(),
-                atualizado.getStatus()
-        );
+        return proximo.map(agendamento -> {
+            // Rollback não conta como chamada: a vez reservada é devolvida
+            FilaPrioridade.Vez chamada = indiceFila.corrigirVez(vez, agendamento.getPrioridade().preferencial());
+            aposRollback(() -> indiceFila.desfazerVez(chamada));
+
+            AgendamentoResponseDTO response = AgendamentoResponseDTO.de(agendamento);
+            notificar(TipoEventoFila.STATUS_ALTERADO, response);
+            return response;
+        });
+    }
+
+    private List<AgendamentoResponseDTO> gravarLote(List<AgendamentosRequestDTO> lote, List<Integer> indices) {
+        List<Agendamento> agendamentos = indices.stream().map(indice -> novoAgendamento(lote.get(indice))).toList();
+
+        // O flush grava (e preenche dataHoraChegada) antes de montar as respostas
+        List<AgendamentoResponseDTO> criados = repository.saveAllAndFlush(agendamentos).stream()
+                .map(AgendamentoResponseDTO::de)
+                .toList();
+        criados.forEach(agendamento -> notificar(TipoEventoFila.CRIADO, agendamento));
+        return criados;
+    }
+
+    private List<FieldErrorDTO> validar(AgendamentosRequestDTO dados) {
+        if (dados == null) {
+            return List.of(new FieldErrorDTO(null, "Agendamento vazio"));
+        }
+        return validator.validate(dados).stream()
+                .map(violacao -> new FieldErrorDTO(violacao.getPropertyPath().toString(), violacao.getMessage()))
+                .toList();
+    }
+
+    private Agendamento novoAgendamento(AgendamentosRequestDTO dados) {
+        Agendamento agendamento = new Agendamento();
+        agendamento.setNomeSolicitante(dados.nomeSolicitante());
+        agendamento.setCpf(dados.cpf());
+        agendamento.setRg(dados.rg());
+        agendamento.setTipoServico(dados.tipoServico());
+        agendamento.setPrioridade(dados.prioridade() != null ? dados.prioridade() : PrioridadeAtendimento.NORMAL);
+        agendamento.setStatus(StatusAgendamento.AGUARDANDO);
+        return agendamento;
+    }
+
+    // Índice e eventos só enxergam o que foi confirmado no banco.
+    // O evento das outras instâncias vai no NOTIFY da própria transação (entregue só no commit),
+    // que também reserva a versão da fila usada no SSE local.
+    private void notificar(TipoEventoFila tipo, AgendamentoResponseDTO agendamento) {
+        LongSupplier versao = barramento.publicar(EventoBarramentoDTO.agendamento(tipo, agendamento));
+        aposCommit(() -> {
+            indiceFila.atualizar(agendamento);
+            filaEventosService.publicar(versao.getAsLong(), tipo, agendamento);
+            metricas.registrar(tipo, agendamento);
+            estimativaEspera.registrar(agendamento);
+        });
     }
 
-    public File fecharExpediente() {
+    // Dentro de transação só roda se ela for confirmada; fora, roda na hora
+    private void aposCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
 
-        List<Agendamento> hoje = repository.findAll();
+    private void aposRollback(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        acao.run();
+                    }
+                }
+            });
+        }
+    }
 
-        File file = relatorioService.gerarRelatorio(hoje);
+    private List<AgendamentoResponseDTO> consultarNoBanco(StatusAgendamento status, String tipoServico,
+                                                          CursorAgendamentoDTO cursor, int quantidade) {
+        Specification<Agendamento> filtro = Specification.allOf(
+                AgendamentoSpecifications.comStatus(status),
+                AgendamentoSpecifications.comTipoServico(tipoServico),
+                AgendamentoSpecifications.aposCursor(cursor)
+        );
 
-        repository.deleteAll();
+        return repository.consultarResumo(filtro, quantidade);
+    }
+
+    private List<AgendamentoResponseDTO> consultarAguardandoNoBanco(String tipoServico, boolean preferencial, int quantidade) {
+        Specification<Agendamento> filtro = Specification.allOf(
+                AgendamentoSpecifications.comStatus(StatusAgendamento.AGUARDANDO),
+                AgendamentoSpecifications.comPreferencial(preferencial),
+                AgendamentoSpecifications.comTipoServico(tipoServico)
+        );
 
-        return file;
+        return repository.consultarResumo(filtro, quantidade);
     }
 }
@@ -0,0 +1,191 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AuthenticationDTO;
+import com.devtec.sai.dto.RegisterDTO;
+import com.devtec.sai.exception.ServicoSobrecarregadoException;
+import com.devtec.sai.model.Usuario;
+import com.devtec.sai.repository.UsuarioRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Login e cadastro fazem BCrypt, que é caro em CPU. O hash roda num pool pequeno e com fila limitada:
+// quando a fila enche a requisição recebe 503 na hora, em vez de ocupar as threads do Tomcat
+// que atendem a fila de agendamentos. Falhas seguidas do mesmo login vindas do mesmo IP, ou de qualquer login
+// vindas do mesmo IP, são bloqueadas por uma janela: de outro IP o dono da conta continua entrando.
+@Service
+public class AutenticacaoService {
+
+    private final AuthenticationManager authenticationManager;
+    private final UsuarioRepository usuarioRepository;
+    private final TokenService tokenService;
+    private final PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSegundos;
+    private final int maximoFalhas;
+    private final int maximoFalhasPorIp;
+    private final int capacidadeFalhas;
+    private final long janelaMs;
+
+    // Limitados: logins e IPs aleatórios não crescem a memória sem fim
+    private final Map<LoginIp, Falhas> falhasPorLogin = new ConcurrentHashMap<>();
+    private final Map<String, Falhas> falhasPorIp = new ConcurrentHashMap<>();
+
+    public AutenticacaoService(AuthenticationManager authenticationManager, UsuarioRepository usuarioRepository,
+                               TokenService tokenService, PasswordEncoder passwordEncoder,
+                               @Value("${sai.autenticacao.threads:0}") int threads,
+                               @Value("${sai.autenticacao.fila:64}") int capacidadeFila,
+                               @Value("${sai.autenticacao.retry-after-s:2}") long retryAfterSegundos,
+                               @Value("${sai.autenticacao.falhas-por-login:5}") int maximoFalhas,
+                               @Value("${sai.autenticacao.falhas-por-ip:20}") int maximoFalhasPorIp,
+                               @Value("${sai.autenticacao.capacidade-falhas:10000}") int capacidadeFalhas,
+                               @Value("${sai.autenticacao.janela-falhas-ms:60000}") long janelaMs) {
+        this.authenticationManager = authenticationManager;
+        this.usuarioRepository = usuarioRepository;
+        this.tokenService = tokenService;
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSegundos = retryAfterSegundos;
+        this.maximoFalhas = maximoFalhas;
+        this.maximoFalhasPorIp = maximoFalhasPorIp;
+        this.capacidadeFalhas = capacidadeFalhas;
+        this.janelaMs = janelaMs;
+
+        // 0 = metade dos núcleos, para sobrar CPU para o resto da aplicação
+        int tamanho = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(tamanho, tamanho, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "sai-autenticacao-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<String> login(AuthenticationDTO dados, String ip) {
+        LoginIp origem = new LoginIp(dados.login(), ip);
+        verificarBloqueio(falhasPorLogin, origem, maximoFalhas);
+        verificarBloqueio(falhasPorIp, ip, maximoFalhasPorIp);
+
+        return executar(() -> {
+            try {
+                var usernamePassword = new UsernamePasswordAuthenticationToken(dados.login(), dados.senha());
+                var auth = authenticationManager.authenticate(usernamePassword);
+                falhasPorLogin.remove(origem);
+                return tokenService.gerarToken((Usuario) auth.getPrincipal());
+            } catch (BadCredentialsException e) {
+                registrarFalha(falhasPorLogin, origem);
+                registrarFalha(falhasPorIp, ip);
+                throw e;
+            }
+        });
+    }
+
+    // false quando o login já existe
+    public CompletableFuture<Boolean> cadastrar(RegisterDTO dados) {
+        return executar(() -> {
+            if (usuarioRepository.findByLogin(dados.login()) != null) {
+                return false;
+            }
+
+            String encryptedPassword = passwordEncoder.encode(dados.senha());
+            usuarioRepository.save(new Usuario(dados.login(), encryptedPassword, dados.role()));
+            return true;
+        });
+    }
+
+    public int tarefasNaFila() {
+        return executor.getQueue().size();
+    }
+
+    public int falhasRegistradas() {
+        return falhasPorLogin.size() + falhasPorIp.size();
+    }
+
+    @Scheduled(fixedDelayString = "${sai.autenticacao.janela-falhas-ms:60000}")
+    public void removerJanelasExpiradas() {
+        long agora = System.currentTimeMillis();
+        falhasPorLogin.values().removeIf(falhas -> agora - falhas.inicio >= janelaMs);
+        falhasPorIp.values().removeIf(falhas -> agora - falhas.inicio >= janelaMs);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> executar(Supplier<T> tarefa) {
+        try {
+            return CompletableFuture.supplyAsync(tarefa, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServicoSobrecarregadoException(
+                    "Muitas autenticações em andamento. Tente novamente em instantes.", retryAfterSegundos, false);
+        }
+    }
+
+    private <K> void verificarBloqueio(Map<K, Falhas> falhasPorChave, K chave, int maximo) {
+        Falhas falhas = falhasPorChave.get(chave);
+        if (falhas == null) {
+            return;
+        }
+
+        long decorrido = System.currentTimeMillis() - falhas.inicio;
+        if (decorrido >= janelaMs) {
+            falhasPorChave.remove(chave, falhas);
+        } else if (falhas.total.get() >= maximo) {
+            long restante = Math.max(1, (janelaMs - decorrido + 999) / 1000);
+            throw new ServicoSobrecarregadoException(
+                    "Muitas tentativas de login. Tente novamente mais tarde.", restante, true);
+        }
+    }
+
+    private <K> void registrarFalha(Map<K, Falhas> falhasPorChave, K chave) {
+        long agora = System.currentTimeMillis();
+        if (falhasPorChave.size() >= capacidadeFalhas && !falhasPorChave.containsKey(chave)) {
+            liberarEspaco(falhasPorChave, agora);
+        }
+        falhasPorChave.compute(chave, (k, atual) ->
+                atual == null || agora - atual.inicio >= janelaMs ? new Falhas(agora) : atual)
+                .total.incrementAndGet();
+    }
+
+    // Janelas vencidas primeiro; se não bastar, as mais antigas
+    private <K> void liberarEspaco(Map<K, Falhas> falhasPorChave, long agora) {
+        falhasPorChave.values().removeIf(falhas -> agora - falhas.inicio >= janelaMs);
+
+        while (falhasPorChave.size() >= capacidadeFalhas) {
+            falhasPorChave.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().inicio))
+                    .ifPresentOrElse(e -> falhasPorChave.remove(e.getKey(), e.getValue()), falhasPorChave::clear);
+        }
+    }
+
+    private record LoginIp(String login, String ip) {}
+
+    private static final class Falhas {
+        final long inicio;
+        final AtomicInteger total = new AtomicInteger();
+
+        Falhas(long inicio) {
+            this.inicio = inicio;
+        }
+    }
+}
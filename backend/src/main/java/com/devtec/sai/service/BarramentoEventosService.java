@@ -0,0 +1,250 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.EventoBarramentoDTO;
+import com.devtec.sai.dto.MensagemBarramentoDTO;
+import com.devtec.sai.repository.VersaoFilaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+// Barramento de eventos entre instâncias sobre LISTEN/NOTIFY do Postgres (o OuvinteBarramentoEventos aplica
+// nas outras). Os eventos de uma transação saem num único comando no beforeCommit: o Postgres só entrega
+// o NOTIFY depois do commit e o descarta no rollback. Fora de transação o envio é imediato.
+// O mesmo comando reserva na sai_versao_fila_seq as versões da fila dos eventos que alteram a fila, sem lock:
+// podem ter buracos e chegar fora de ordem, o que o FilaEventosService tolera. Desabilitado, o barramento
+// continua reservando as versões, só não notifica.
+@Service
+public class BarramentoEventosService {
+
+    static final String CANAL = "sai_eventos";
+    // Mensagens do gatilho de tb_usuarios (V13), sem sequência contínua
+    static final String ORIGEM_BANCO = "banco";
+
+    // O NOTIFY aceita até 8000 bytes; a folga cobre origem e sequência
+    private static final int TAMANHO_MAXIMO = 7500;
+    // Versão de um evento na lista da mensagem: até 19 dígitos e a vírgula
+    private static final int TAMANHO_VERSAO = 20;
+
+    private static final String NOTIFICAR = "SELECT pg_notify(?, mensagem) FROM unnest(?) AS mensagem";
+
+    // O nextval não trava nada nem volta no rollback: as versões de cada mensagem (a fatia [inicio, fim] das
+    // reservadas) entram no começo do JSON já serializado. A CTE com função volátil roda uma vez só.
+    private static final String RESERVAR_VERSOES_E_NOTIFICAR = """
+            WITH reserva AS (
+                SELECT array_agg(versao ORDER BY versao) AS versoes
+                FROM (SELECT nextval('sai_versao_fila_seq') AS versao FROM generate_series(1, ?)) AS s
+            )
+            SELECT versoes, pg_notify(?, '{"versoes":[' || array_to_string(versoes[inicio:fim], ',') || '],'
+                    || substr(mensagem, 2))
+            FROM reserva, unnest(?::text[], ?::int[], ?::int[]) AS t(mensagem, inicio, fim)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final VersaoFilaRepository versaoFilaRepository;
+    private final TransactionTemplate transacaoNova;
+    private final boolean habilitado;
+
+    // Identifica esta instância: o ouvinte ignora as próprias mensagens
+    private final String origem = UUID.randomUUID().toString();
+    private long sequencia;
+
+    public BarramentoEventosService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                    VersaoFilaRepository versaoFilaRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${sai.barramento.habilitado:true}") boolean habilitado) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.versaoFilaRepository = versaoFilaRepository;
+        this.habilitado = habilitado;
+
+        this.transacaoNova = new TransactionTemplate(transactionManager);
+        this.transacaoNova.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Devolve a versão da fila atribuída ao evento, conhecida só depois do envio (no commit, dentro de transação)
+    public LongSupplier publicar(EventoBarramentoDTO evento) {
+        Publicado publicado = new Publicado(evento);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enviar(List.of(publicado));
+            return publicado;
+        }
+
+        Pendentes pendentes = (Pendentes) TransactionSynchronizationManager.getResource(this);
+        if (pendentes == null) {
+            pendentes = new Pendentes();
+            TransactionSynchronizationManager.bindResource(this, pendentes);
+            TransactionSynchronizationManager.registerSynchronization(pendentes);
+        }
+        pendentes.publicados.add(publicado);
+        return publicado;
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public String getOrigem() {
+        return origem;
+    }
+
+    public MensagemBarramentoDTO ler(String payload) {
+        try {
+            return objectMapper.readValue(payload, MensagemBarramentoDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Agrupa os eventos em mensagens abaixo do limite e manda todas num só comando
+    private void enviar(List<Publicado> publicados) {
+        int alteracoesFila = (int) publicados.stream().filter(p -> p.evento.tipo().alteraFila()).count();
+        if (!habilitado) {
+            if (alteracoesFila > 0) {
+                numerar(publicados, versaoFilaRepository.reservar(alteracoesFila));
+            }
+            return;
+        }
+        if (publicados.isEmpty()) return;
+
+        List<List<EventoBarramentoDTO>> grupos = new ArrayList<>();
+        List<Integer> inicios = new ArrayList<>();
+        List<Integer> fins = new ArrayList<>();
+        List<EventoBarramentoDTO> grupo = new ArrayList<>();
+        int tamanho = 0;
+        int anterioresNaFila = 0;
+        inicios.add(1);
+        for (Publicado publicado : publicados) {
+            EventoBarramentoDTO evento = publicado.evento;
+            int tamanhoEvento = serializar(evento).length + 1;
+            if (tamanhoEvento > TAMANHO_MAXIMO) {
+                // Não cabe num NOTIFY: as outras instâncias recarregam do banco
+                evento = EventoBarramentoDTO.resincronizar();
+                tamanhoEvento = serializar(evento).length + 1;
+            }
+            if (evento.tipo().alteraFila()) tamanhoEvento += TAMANHO_VERSAO;
+            if (!grupo.isEmpty() && tamanho + tamanhoEvento > TAMANHO_MAXIMO) {
+                grupos.add(grupo);
+                fins.add(anterioresNaFila);
+                inicios.add(anterioresNaFila + 1);
+                grupo = new ArrayList<>();
+                tamanho = 0;
+            }
+            grupo.add(evento);
+            tamanho += tamanhoEvento;
+            if (evento.tipo().alteraFila()) anterioresNaFila++;
+        }
+        grupos.add(grupo);
+        fins.add(anterioresNaFila);
+
+        String[] mensagens = new String[grupos.size()];
+        synchronized (this) {
+            for (int i = 0; i < mensagens.length; i++) {
+                mensagens[i] = new String(serializar(new MensagemBarramentoDTO(origem, ++sequencia, null, grupos.get(i))),
+                        StandardCharsets.UTF_8);
+            }
+        }
+
+        if (alteracoesFila == 0) {
+            jdbcTemplate.query(NOTIFICAR,
+                    ps -> {
+                        ps.setString(1, CANAL);
+                        ps.setArray(2, ps.getConnection().createArrayOf("text", mensagens));
+                    },
+                    (RowCallbackHandler) rs -> { });
+            return;
+        }
+
+        List<Long> versoes = new ArrayList<>();
+        jdbcTemplate.query(RESERVAR_VERSOES_E_NOTIFICAR,
+                ps -> {
+                    ps.setInt(1, alteracoesFila);
+                    ps.setString(2, CANAL);
+                    ps.setArray(3, ps.getConnection().createArrayOf("text", mensagens));
+                    ps.setArray(4, ps.getConnection().createArrayOf("integer", inicios.toArray()));
+                    ps.setArray(5, ps.getConnection().createArrayOf("integer", fins.toArray()));
+                },
+                (RowCallbackHandler) rs -> {
+                    if (versoes.isEmpty()) versoes.addAll(Arrays.asList((Long[]) rs.getArray(1).getArray()));
+                });
+        numerar(publicados, versoes);
+    }
+
+    private static void numerar(List<Publicado> publicados, List<Long> versoes) {
+        int proxima = 0;
+        for (Publicado publicado : publicados) {
+            if (publicado.evento.tipo().alteraFila()) {
+                publicado.versao = versoes.get(proxima++);
+            }
+        }
+    }
+
+    private byte[] serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsBytes(valor);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Eventos da transação atual. Os publicados durante o próprio commit (listeners JPA disparados
+    // pelo flush) chegam depois do beforeCommit e saem no afterCommit, numa transação nova.
+    private class Pendentes implements TransactionSynchronization {
+
+        private final List<Publicado> publicados = new ArrayList<>();
+        private int enviados;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            enviar(publicados);
+            enviados = publicados.size();
+        }
+
+        @Override
+        public void afterCommit() {
+            if (enviados < publicados.size()) {
+                List<Publicado> restantes = List.copyOf(publicados.subList(enviados, publicados.size()));
+                transacaoNova.executeWithoutResult(status -> enviar(restantes));
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(BarramentoEventosService.this);
+        }
+    }
+
+    private static final class Publicado implements LongSupplier {
+
+        private final EventoBarramentoDTO evento;
+        private long versao;
+
+        private Publicado(EventoBarramentoDTO evento) {
+            this.evento = evento;
+        }
+
+        @Override
+        public long getAsLong() {
+            if (versao == 0) {
+                throw new IllegalStateException("Versão da fila ainda não reservada para o evento");
+            }
+            return versao;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.EventoBarramentoDTO;
+import com.devtec.sai.exception.RecursoNaoEncontradoException;
+import com.devtec.sai.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Época atual dos tokens de cada login. O SecurityFilter compara com a época gravada no token:
+// depois da primeira consulta de um login, validar uma requisição não toca no banco.
+// O cache é limitado e cada época expira pelo TTL: mudanças que não chegarem pelo barramento (ajuste manual
+// com o ouvinte desconectado, NOTIFY perdido) valem no máximo depois de ttl-ms.
+@Service
+public class EpocaTokenService {
+
+    // Login que não existe mais: nenhum token dele é aceito
+    private static final int SEM_USUARIO = -1;
+
+    private final UsuarioRepository repository;
+    private final BarramentoEventosService barramento;
+
+    private final int capacidade;
+    private final long ttlNanos;
+
+    private final Map<String, Entrada> epocas = new ConcurrentHashMap<>();
+
+    private final Counter acertos;
+    private final Counter falhas;
+
+    public EpocaTokenService(UsuarioRepository repository, BarramentoEventosService barramento, MeterRegistry registry,
+                             @Value("${sai.seguranca.epoca.capacidade:10000}") int capacidade,
+                             @Value("${sai.seguranca.epoca.ttl-ms:60000}") long ttlMs) {
+        this.repository = repository;
+        this.barramento = barramento;
+        this.capacidade = capacidade;
+        this.ttlNanos = ttlMs * 1_000_000;
+
+        this.acertos = Counter.builder("sai.seguranca.epoca.consulta")
+                .tag("resultado", "acerto")
+                .register(registry);
+        this.falhas = Counter.builder("sai.seguranca.epoca.consulta")
+                .tag("resultado", "falha")
+                .register(registry);
+        registry.gaugeMapSize("sai.seguranca.epoca.tamanho", List.of(), epocas);
+    }
+
+    public boolean valida(String login, int epoca) {
+        long agora = System.nanoTime();
+
+        Entrada entrada = epocas.get(login);
+        if (entrada != null && agora - entrada.carregadaEm() < ttlNanos) {
+            acertos.increment();
+        } else {
+            falhas.increment();
+            if (entrada == null && epocas.size() >= capacidade) {
+                liberarEspaco(agora);
+            }
+            entrada = new Entrada(repository.buscarEpocaToken(login).orElse(SEM_USUARIO), agora);
+            epocas.put(login, entrada);
+        }
+        return entrada.epoca() != SEM_USUARIO && entrada.epoca() == epoca;
+    }
+
+    // Invalida todos os tokens já emitidos para o login
+    @Transactional
+    public void revogar(String login) {
+        if (repository.incrementarEpocaToken(login) == 0) {
+            throw new RecursoNaoEncontradoException("Usuário não encontrado");
+        }
+        invalidar(login);
+    }
+
+    // Remove agora e, dentro de transação, de novo após o commit: uma leitura concorrente
+    // feita antes do commit poderia ter recolocado a época antiga. As outras instâncias recebem pelo barramento.
+    public void invalidar(String login) {
+        epocas.remove(login);
+        barramento.publicar(EventoBarramentoDTO.usuario(login));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    epocas.remove(login);
+                }
+            });
+        }
+    }
+
+    // Login alterado em outra instância: o commit já aconteceu lá, basta reler na próxima validação
+    public void descartar(String login) {
+        epocas.remove(login);
+    }
+
+    public void limpar() {
+        epocas.clear();
+    }
+
+    public int tamanho() {
+        return epocas.size();
+    }
+
+    // Cheio: saem as expiradas e, se não bastar, as mais antigas
+    private void liberarEspaco(long agora) {
+        epocas.values().removeIf(entrada -> agora - entrada.carregadaEm() >= ttlNanos);
+
+        while (epocas.size() >= capacidade) {
+            epocas.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().carregadaEm()))
+                    .ifPresentOrElse(e -> epocas.remove(e.getKey(), e.getValue()), epocas::clear);
+        }
+    }
+
+    private record Entrada(int epoca, long carregadaEm) {}
+}
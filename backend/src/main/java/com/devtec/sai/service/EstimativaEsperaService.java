@@ -0,0 +1,251 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.EstimativaEsperaDTO;
+import com.devtec.sai.dto.ResumoEsperaDTO;
+import com.devtec.sai.dto.ResumoTipoServicoDTO;
+import com.devtec.sai.exception.RecursoNaoEncontradoException;
+import com.devtec.sai.model.StatusAgendamento;
+import com.devtec.sai.repository.AgendamentosRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Estimativa de espera, alimentada pelo AgendamentoService depois do commit de cada transição de status.
+// Por tipo de serviço guarda a média móvel exponencial e um histograma da duração do atendimento
+// (de EM_ATENDIMENTO até CONCLUIDO); cada transição custa O(1) e nada é relido do banco.
+// A posição na fila e os guichês ativos vêm do índice em memória; com o índice desligado ou ainda carregando,
+// de contagens no banco.
+@Service
+public class EstimativaEsperaService {
+
+    private final IndiceFilaService indiceFila;
+    private final AgendamentosRepository repository;
+    private final double alfa;
+    private final double duracaoPadrao;
+    private final long janela;
+    private final int maximoTipos;
+    private final int minimoGuiches;
+
+    // tipoServico é texto livre: passados maximoTipos, os tipos novos só alimentam a estatística geral
+    private final Map<String, EstatisticaTipo> porTipo = new ConcurrentHashMap<>();
+    private final EstatisticaTipo geral;
+    private final Map<UUID, LocalDateTime> inicioAtendimento = new ConcurrentHashMap<>();
+
+    public EstimativaEsperaService(IndiceFilaService indiceFila, AgendamentosRepository repository,
+                                   @Value("${sai.estimativa.alfa:0.2}") double alfa,
+                                   @Value("${sai.estimativa.duracao-padrao-s:600}") double duracaoPadrao,
+                                   @Value("${sai.estimativa.janela:500}") long janela,
+                                   @Value("${sai.metricas.max-tipos-servico:50}") int maximoTipos,
+                                   @Value("${sai.estimativa.minimo-guiches:1}") int minimoGuiches) {
+        if (alfa <= 0 || alfa > 1) {
+            throw new IllegalArgumentException("sai.estimativa.alfa deve estar em (0, 1]");
+        }
+        this.indiceFila = indiceFila;
+        this.repository = repository;
+        this.alfa = alfa;
+        this.duracaoPadrao = duracaoPadrao;
+        this.janela = janela;
+        this.maximoTipos = maximoTipos;
+        this.minimoGuiches = Math.max(1, minimoGuiches);
+        this.geral = new EstatisticaTipo(alfa, janela);
+    }
+
+    // Atendimentos iniciados antes de um restart não têm início conhecido e são ignorados ao concluir
+    public void registrar(AgendamentoResponseDTO agendamento) {
+        switch (agendamento.status()) {
+            case EM_ATENDIMENTO -> inicioAtendimento.put(agendamento.id(), LocalDateTime.now());
+            case CONCLUIDO -> {
+                LocalDateTime inicio = inicioAtendimento.remove(agendamento.id());
+                if (inicio == null) return;
+
+                double segundos = Duration.between(inicio, LocalDateTime.now()).toMillis() / 1000.0;
+                geral.registrar(segundos);
+                EstatisticaTipo estatistica = estatisticaParaRegistro(agendamento.tipoServico());
+                if (estatistica != null) {
+                    estatistica.registrar(segundos);
+                }
+            }
+            case CANCELADO -> inicioAtendimento.remove(agendamento.id());
+            default -> { }
+        }
+    }
+
+    // O expediente fechado leva junto quem ficou em atendimento; as durações aprendidas continuam valendo
+    public void limparAtendimentos() {
+        inicioAtendimento.clear();
+    }
+
+    // Soma a duração esperada de cada um à frente (na ordem real de chamada) e divide pelos guichês ativos.
+    // A pessimista usa o p90 de cada tipo no lugar da média. Só quem será chamado antes é contado, por tipo.
+    public EstimativaEsperaDTO estimar(UUID id) {
+        boolean indice = indiceFila.disponivel();
+
+        AgendamentoResponseDTO agendamento = (indice ? indiceFila.buscar(id) : repository.findById(id).map(AgendamentoResponseDTO::de))
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Agendamento não encontrado"));
+        int guiches = guiches(indice
+                ? indiceFila.contarPorStatus().getOrDefault(StatusAgendamento.EM_ATENDIMENTO, 0L)
+                : repository.contarPorStatus().stream()
+                        .filter(item -> item.getStatus() == StatusAgendamento.EM_ATENDIMENTO)
+                        .mapToLong(AgendamentosRepository.ContagemStatus::getTotal)
+                        .sum());
+
+        if (agendamento.status() != StatusAgendamento.AGUARDANDO) {
+            return new EstimativaEsperaDTO(id, agendamento.tipoServico(), agendamento.status(), null, guiches, 0, 0);
+        }
+
+        Map<String, Long> aFrente = indice
+                ? indiceFila.contarAFrentePorTipo(agendamento).orElse(Map.of())
+                : contarAFrenteNoBanco(agendamento);
+
+        long posicao = 1;
+        double media = 0;
+        double pessimista = 0;
+        for (Map.Entry<String, Long> tipo : aFrente.entrySet()) {
+            posicao += tipo.getValue();
+            media += tipo.getValue() * duracaoMedia(tipo.getKey());
+            pessimista += tipo.getValue() * duracaoPercentil(tipo.getKey(), 0.9);
+        }
+
+        return new EstimativaEsperaDTO(id, agendamento.tipoServico(), agendamento.status(), (int) posicao, guiches,
+                Math.round(media / guiches), Math.round(pessimista / guiches));
+    }
+
+    public ResumoEsperaDTO resumir() {
+        Map<String, Long> aguardandoPorTipo;
+        long emAtendimento;
+        if (indiceFila.disponivel()) {
+            aguardandoPorTipo = indiceFila.contarPorStatusETipo().getOrDefault(StatusAgendamento.AGUARDANDO, Map.of());
+            emAtendimento = indiceFila.contarPorStatus().getOrDefault(StatusAgendamento.EM_ATENDIMENTO, 0L);
+        } else {
+            aguardandoPorTipo = new HashMap<>();
+            emAtendimento = 0;
+            for (AgendamentosRepository.ContagemStatusTipo item : repository.contarPorStatusETipo()) {
+                if (item.getStatus() == StatusAgendamento.AGUARDANDO) {
+                    aguardandoPorTipo.merge(item.getTipoServico(), item.getTotal(), Long::sum);
+                } else if (item.getStatus() == StatusAgendamento.EM_ATENDIMENTO) {
+                    emAtendimento += item.getTotal();
+                }
+            }
+        }
+
+        Set<String> tipos = new TreeSet<>(porTipo.keySet());
+        aguardandoPorTipo.forEach((tipo, total) -> {
+            if (total > 0) tipos.add(tipo);
+        });
+
+        long aguardando = 0;
+        double espera = 0;
+        List<ResumoTipoServicoDTO> resumo = new ArrayList<>(tipos.size());
+        for (String tipo : tipos) {
+            long naFila = aguardandoPorTipo.getOrDefault(tipo, 0L);
+            double duracao = duracaoMedia(tipo);
+            EstatisticaTipo estatistica = porTipo.get(tipo);
+
+            aguardando += naFila;
+            espera += naFila * duracao;
+            resumo.add(new ResumoTipoServicoDTO(tipo, naFila,
+                    estatistica == null ? 0 : estatistica.getAmostras(),
+                    Math.round(duracao),
+                    Math.round(duracaoPercentil(tipo, 0.5)),
+                    Math.round(duracaoPercentil(tipo, 0.9))));
+        }
+        resumo.sort(Comparator.comparingLong(ResumoTipoServicoDTO::aguardando).reversed());
+
+        int guiches = guiches(emAtendimento);
+        return new ResumoEsperaDTO(guiches, aguardando, Math.round(espera / guiches), resumo);
+    }
+
+    // Cada guichê atende um por vez: os EM_ATENDIMENTO são os guichês ocupados
+    private int guiches(long emAtendimento) {
+        return (int) Math.max(minimoGuiches, emAtendimento);
+    }
+
+    // Mesma conta do índice: a própria classe até o agendamento e, da outra, os que a intercalação põe na frente
+    private Map<String, Long> contarAFrenteNoBanco(AgendamentoResponseDTO agendamento) {
+        boolean preferencial = agendamento.prioridade().preferencial();
+        Map<String, Long> porTipo = new HashMap<>();
+        long naClasse = 0;
+        for (AgendamentosRepository.ContagemClasseTipo item
+                : repository.contarAguardandoAntes(agendamento.dataHoraChegada(), agendamento.id())) {
+            if (item.getPreferencial() == preferencial) {
+                porTipo.merge(item.getTipoServico(), item.getTotal(), Long::sum);
+                naClasse += item.getTotal();
+            }
+        }
+
+        long daOutraClasse = indiceFila.outrosAFrente(preferencial, naClasse);
+        if (daOutraClasse > 0) {
+            (preferencial ? repository.contarProximosRegulares(daOutraClasse) : repository.contarProximosPreferenciais(daOutraClasse))
+                    .forEach(item -> porTipo.merge(item.getTipoServico(), item.getTotal(), Long::sum));
+        }
+        return porTipo;
+    }
+
+    // Sem amostras do tipo usa a estatística geral; sem nenhuma amostra, a duração padrão
+    private double duracaoMedia(String tipoServico) {
+        EstatisticaTipo estatistica = porTipo.get(tipoServico);
+        if (estatistica != null && estatistica.getAmostras() > 0) return estatistica.getMedia();
+        if (geral.getAmostras() > 0) return geral.getMedia();
+        return duracaoPadrao;
+    }
+
+    private double duracaoPercentil(String tipoServico, double p) {
+        EstatisticaTipo estatistica = porTipo.get(tipoServico);
+        if (estatistica != null && estatistica.getAmostras() > 0) return estatistica.percentil(p);
+        if (geral.getAmostras() > 0) return geral.percentil(p);
+        return duracaoPadrao;
+    }
+
+    private EstatisticaTipo estatisticaParaRegistro(String tipoServico) {
+        if (tipoServico == null) return null;
+
+        EstatisticaTipo estatistica = porTipo.get(tipoServico);
+        if (estatistica != null || porTipo.size() >= maximoTipos) {
+            return estatistica;
+        }
+        return porTipo.computeIfAbsent(tipoServico, tipo -> new EstatisticaTipo(alfa, janela));
+    }
+
+    private static class EstatisticaTipo {
+
+        private final double alfa;
+        private final HistogramaDuracoes histograma;
+        private double media;
+        private long amostras;
+
+        EstatisticaTipo(double alfa, long janela) {
+            this.alfa = alfa;
+            this.histograma = new HistogramaDuracoes(janela);
+        }
+
+        synchronized void registrar(double segundos) {
+            media = amostras == 0 ? segundos : alfa * segundos + (1 - alfa) * media;
+            amostras++;
+            histograma.registrar(segundos);
+        }
+
+        synchronized double getMedia() {
+            return media;
+        }
+
+        synchronized long getAmostras() {
+            return amostras;
+        }
+
+        double percentil(double p) {
+            return histograma.percentil(p);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoExportadoDTO;
+import com.devtec.sai.dto.FiltroExportacaoDTO;
+import com.devtec.sai.model.FormatoExportacao;
+import com.devtec.sai.repository.ExportacaoAgendamentosRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+// Exportação das linhas brutas (fila atual e expedientes arquivados) em CSV ou NDJSON.
+// Cada linha lida do cursor é escrita na hora na resposta, com gzip opcional: o heap não cresce com o período.
+@Service
+public class ExportacaoService {
+
+    private static final String CABECALHO_CSV = "id,nome_solicitante,cpf,rg,tipo_servico,prioridade,data_hora_chegada,status";
+
+    private final ExportacaoAgendamentosRepository repository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+
+    public ExportacaoService(ExportacaoAgendamentosRepository repository, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+    }
+
+    public String nomeArquivo(FormatoExportacao formato, boolean compactar) {
+        return "agendamentos_" + LocalDate.now() + "." + formato.getExtensao() + (compactar ? ".gz" : "");
+    }
+
+    // Escreve em 'destino' sem fechá-lo
+    public void exportar(FiltroExportacaoDTO filtro, FormatoExportacao formato, boolean compactar, OutputStream destino) {
+        Timer.Sample inicio = Timer.start(registry);
+        String resultado = "erro";
+
+        try {
+            GZIPOutputStream gzip = compactar ? new GZIPOutputStream(destino, 64 * 1024) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzip != null ? gzip : destino, StandardCharsets.UTF_8),
+                    64 * 1024);
+
+            long linhas = formato == FormatoExportacao.CSV
+                    ? escreverCsv(filtro, writer)
+                    : escreverNdjson(filtro, writer);
+
+            // Termina o gzip sem fechar o destino, que é da resposta HTTP
+            writer.flush();
+            if (gzip != null) {
+                gzip.finish();
+            }
+            destino.flush();
+
+            DistributionSummary.builder("sai.exportacao.linhas")
+                    .description("Agendamentos por exportação")
+                    .tag("formato", formato.name())
+                    .register(registry)
+                    .record(linhas);
+            resultado = "ok";
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            inicio.stop(Timer.builder("sai.exportacao.duracao")
+                    .description("Tempo para gerar a exportação")
+                    .tags("formato", formato.name(), "resultado", resultado)
+                    .register(registry));
+        }
+    }
+
+    private long escreverCsv(FiltroExportacaoDTO filtro, Writer writer) throws IOException {
+        writer.write(CABECALHO_CSV);
+        writer.write('\n');
+
+        return repository.percorrer(filtro, agendamento -> {
+            try {
+                writer.write(agendamento.id().toString());
+                writer.write(',');
+                escreverCampoCsv(writer, agendamento.nomeSolicitante());
+                writer.write(',');
+                escreverCampoCsv(writer, agendamento.cpf());
+                writer.write(',');
+                escreverCampoCsv(writer, agendamento.rg());
+                writer.write(',');
+                escreverCampoCsv(writer, agendamento.tipoServico());
+                writer.write(',');
+                writer.write(agendamento.prioridade().name());
+                writer.write(',');
+                writer.write(agendamento.dataHoraChegada().toString());
+                writer.write(',');
+                writer.write(agendamento.status().name());
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private long escreverNdjson(FiltroExportacaoDTO filtro, Writer writer) throws IOException {
+        JsonGenerator gerador = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        long linhas = repository.percorrer(filtro, agendamento -> {
+            try {
+                gerador.writeObject(agendamento);
+                gerador.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        gerador.close();
+        return linhas;
+    }
+
+    // RFC 4180: aspas quando há separador, aspas ou quebra de linha; aspas internas dobradas
+    private static void escreverCampoCsv(Writer writer, String valor) throws IOException {
+        if (valor == null) return;
+
+        boolean aspas = false;
+        for (int i = 0; i < valor.length() && !aspas; i++) {
+            char c = valor.charAt(i);
+            aspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!aspas) {
+            writer.write(valor);
+            return;
+        }
+        writer.write('"');
+        writer.write(valor.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,209 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.EventoBarramentoDTO;
+import com.devtec.sai.dto.FechamentoExpedienteDTO;
+import com.devtec.sai.exception.ConflitoException;
+import com.devtec.sai.exception.RecursoNaoEncontradoException;
+import com.devtec.sai.model.SituacaoFechamento;
+import com.devtec.sai.repository.FechamentosExpedienteRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Fecha o expediente em segundo plano: gera o PDF, arquiva as partições do dia e limpa o índice.
+// Um fechamento por dia em todo o cluster (tb_fechamentos_expediente): novas submissões, em qualquer instância,
+// devolvem o mesmo job, exceto se o anterior falhou. Situação, progresso e o PDF ficam no banco, então
+// qualquer instância responde a consulta e entrega o relatório; o disco só guarda o PDF enquanto é gerado.
+// Relatório e arquivamento rodam na mesma transação, com as escritas em tb_agendamentos bloqueadas desde
+// antes da primeira leitura: o PDF mostra exatamente o que é arquivado. Chamadas e agendamentos feitos durante
+// a geração esperam o commit e caem no expediente seguinte. O progresso é gravado em transações próprias
+// para as outras instâncias o verem antes do fim.
+@Service
+public class FechamentoExpedienteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FechamentoExpedienteService.class);
+
+    // Parte do progresso reservada ao relatório; o restante é o arquivamento
+    private static final int PROGRESSO_RELATORIO = 90;
+
+    private final RelatorioService relatorioService;
+    private final ParticoesAgendamentoService particoesService;
+    private final IndiceFilaService indiceFila;
+    private final FilaEventosService filaEventosService;
+    private final EstimativaEsperaService estimativaEspera;
+    private final BarramentoEventosService barramento;
+    private final FechamentosExpedienteRepository fechamentos;
+    private final String diretorioConfigurado;
+    private final long retencaoHoras;
+    private final long abandonoMinutos;
+    private final TransactionTemplate transacao;
+    private final TransactionTemplate transacaoNova;
+
+    // Uma thread virtual por vez: fechamentos não concorrem pelo lock das partições
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("sai-fechamento-", 0).factory());
+
+    private volatile Path diretorio;
+
+    public FechamentoExpedienteService(RelatorioService relatorioService, ParticoesAgendamentoService particoesService,
+                                       IndiceFilaService indiceFila, FilaEventosService filaEventosService,
+                                       EstimativaEsperaService estimativaEspera, BarramentoEventosService barramento,
+                                       FechamentosExpedienteRepository fechamentos,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${sai.fechamento.diretorio:}") String diretorioConfigurado,
+                                       @Value("${sai.fechamento.retencao-horas:24}") long retencaoHoras,
+                                       @Value("${sai.fechamento.abandono-minutos:30}") long abandonoMinutos) {
+        this.relatorioService = relatorioService;
+        this.particoesService = particoesService;
+        this.indiceFila = indiceFila;
+        this.filaEventosService = filaEventosService;
+        this.estimativaEspera = estimativaEspera;
+        this.barramento = barramento;
+        this.fechamentos = fechamentos;
+        this.diretorioConfigurado = diretorioConfigurado;
+        this.retencaoHoras = retencaoHoras;
+        this.abandonoMinutos = abandonoMinutos;
+
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacaoNova = new TransactionTemplate(transactionManager);
+        this.transacaoNova.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public FechamentoExpedienteDTO solicitar() {
+        LocalDate dia = LocalDate.now();
+        if (fechamentos.falharAbandonados(dia, abandonoMinutos) > 0) {
+            logger.warn("Fechamento do expediente {} parado há mais de {} min marcado como falho", dia, abandonoMinutos);
+        }
+
+        UUID id = UUID.randomUUID();
+        if (fechamentos.criar(id, dia)) {
+            executor.execute(() -> executar(id, dia));
+            return buscar(id);
+        }
+        // O job do dia pode ter falhado entre o INSERT e a consulta: então este pedido cria o próximo
+        return fechamentos.buscarDoDia(dia).orElseGet(this::solicitar);
+    }
+
+    public FechamentoExpedienteDTO consultar(UUID id) {
+        return buscar(id);
+    }
+
+    // Copia o PDF guardado para 'destino'; antes de concluir o job não há relatório para entregar
+    public void copiarRelatorio(UUID id, OutputStream destino) {
+        fechamentos.copiarRelatorio(id, destino);
+    }
+
+    public FechamentoExpedienteDTO verificarRelatorioPronto(UUID id) {
+        FechamentoExpedienteDTO fechamento = buscar(id);
+        if (fechamento.situacao() != SituacaoFechamento.CONCLUIDO) {
+            throw new ConflitoException("Relatório do fechamento ainda não está disponível (" + fechamento.situacao() + ")");
+        }
+        return fechamento;
+    }
+
+    @Scheduled(fixedDelayString = "${sai.fechamento.limpeza-ms:3600000}")
+    public void removerExpirados() {
+        fechamentos.removerConcluidosAntes(LocalDateTime.now().minusHours(retencaoHoras));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private void executar(UUID id, LocalDate dia) {
+        Path arquivo = null;
+        try {
+            fechamentos.atualizar(id, SituacaoFechamento.GERANDO_RELATORIO, 0, 0, 0);
+            Path pdf = Files.createTempFile(diretorio(), "fechamento_" + dia + "_", ".pdf");
+            arquivo = pdf;
+
+            transacao.executeWithoutResult(status -> {
+                particoesService.bloquearEscritas();
+
+                // Grava no banco só quando o percentual muda: no máximo PROGRESSO_RELATORIO atualizações
+                long[] ultimo = {0, 0, 0};
+                try (OutputStream saida = Files.newOutputStream(pdf)) {
+                    relatorioService.gerarRelatorio(saida, (processados, total) -> {
+                        int progresso = total == 0 ? PROGRESSO_RELATORIO
+                                : (int) Math.min(PROGRESSO_RELATORIO, processados * PROGRESSO_RELATORIO / total);
+                        ultimo[1] = processados;
+                        ultimo[2] = total;
+                        if (progresso != ultimo[0]) {
+                            ultimo[0] = progresso;
+                            atualizarEmSeparado(id, SituacaoFechamento.GERANDO_RELATORIO, progresso, processados, total);
+                        }
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                atualizarEmSeparado(id, SituacaoFechamento.ARQUIVANDO, PROGRESSO_RELATORIO, ultimo[1], ultimo[2]);
+
+                // Daqui em diante a linha do job fica com esta transação: nada mais em transação separada
+                fechamentos.guardarRelatorio(id, pdf);
+                particoesService.arquivarExpediente();
+            });
+
+            indiceFila.limpar();
+            estimativaEspera.limparAtendimentos();
+            filaEventosService.resincronizar(barramento.publicar(EventoBarramentoDTO.resincronizar()).getAsLong());
+
+            fechamentos.concluir(id);
+        } catch (Exception e) {
+            logger.error("Falha no fechamento do expediente {}", dia, e);
+            fechamentos.falhar(id, e.getMessage());
+        } finally {
+            apagar(arquivo);
+        }
+    }
+
+    private void atualizarEmSeparado(UUID id, SituacaoFechamento situacao, int progresso, long processados, long total) {
+        transacaoNova.executeWithoutResult(status -> fechamentos.atualizar(id, situacao, progresso, processados, total));
+    }
+
+    private FechamentoExpedienteDTO buscar(UUID id) {
+        return fechamentos.buscar(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Fechamento de expediente não encontrado"));
+    }
+
+    private Path diretorio() throws IOException {
+        if (diretorio == null) {
+            synchronized (this) {
+                if (diretorio == null) {
+                    diretorio = diretorioConfigurado.isBlank()
+                            ? Files.createTempDirectory("sai-fechamentos")
+                            : Files.createDirectories(Path.of(diretorioConfigurado));
+                }
+            }
+        }
+        return diretorio;
+    }
+
+    private void apagar(Path arquivo) {
+        if (arquivo == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            logger.warn("Não foi possível remover {}", arquivo, e);
+        }
+    }
+}
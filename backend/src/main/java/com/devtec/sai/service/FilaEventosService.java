@@ -0,0 +1,294 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.EventoFilaDTO;
+import com.devtec.sai.model.TipoEventoFila;
+import com.devtec.sai.repository.VersaoFilaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Distribui as mudanças da fila por Server-Sent Events para os guichês e painéis.
+// Cada evento chega com a versão da fila reservada no commit (sai_versao_fila_seq, igual em todas as instâncias):
+// ela é o id SSE e o ETag do consultar_agendamentos, e o histórico responde quais agendamentos mudaram
+// desde uma versão. Os eventos são distribuídos na ordem das versões; os que chegam adiantados (commits fora
+// da ordem das versões) esperam os anteriores por espera-lacuna-ms, e a versão que não chegou nesse tempo
+// (rollback depois do nextval, NOTIFY perdido) é pulada.
+@Service
+public class FilaEventosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FilaEventosService.class);
+
+    // Marcador colocado na fila de cada assinante para manter a conexão viva
+    private static final EventoFilaDTO HEARTBEAT = new EventoFilaDTO(0, null, null, null);
+
+    private final VersaoFilaRepository versaoFilaRepository;
+    private final int capacidadeHistorico;
+    private final int capacidadeAssinante;
+    private final long timeoutMs;
+    private final long esperaLacunaMs;
+
+    private final ArrayDeque<EventoFilaDTO> historico = new ArrayDeque<>();
+    private final TreeMap<Long, EventoFilaDTO> adiantados = new TreeMap<>();
+    private final Set<Assinante> assinantes = new CopyOnWriteArraySet<>();
+    private final ExecutorService envio = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Todos os eventos até 'versao' já foram distribuídos; o histórico cobre as versões depois de 'piso'
+    private long versao;
+    private long piso;
+    private long lacunaDesde;
+
+    public FilaEventosService(VersaoFilaRepository versaoFilaRepository,
+                              @Value("${sai.fila.eventos.historico:1000}") int capacidadeHistorico,
+                              @Value("${sai.fila.eventos.buffer-assinante:256}") int capacidadeAssinante,
+                              @Value("${sai.fila.eventos.timeout-ms:1800000}") long timeoutMs,
+                              @Value("${sai.barramento.espera-lacuna-ms:2000}") long esperaLacunaMs) {
+        this.versaoFilaRepository = versaoFilaRepository;
+        this.capacidadeHistorico = capacidadeHistorico;
+        this.capacidadeAssinante = capacidadeAssinante;
+        this.timeoutMs = timeoutMs;
+        this.esperaLacunaMs = esperaLacunaMs;
+        this.versao = versaoFilaRepository.atual();
+        this.piso = versao;
+    }
+
+    public void publicar(long versao, TipoEventoFila tipo, AgendamentoResponseDTO agendamento) {
+        receber(new EventoFilaDTO(versao, tipo, agendamento, LocalDateTime.now()));
+    }
+
+    // A fila mudou sem eventos por agendamento (expediente arquivado): painéis e deltas precisam recarregar tudo
+    public void resincronizar(long versao) {
+        receber(new EventoFilaDTO(versao, TipoEventoFila.RESINCRONIZAR, null, LocalDateTime.now()));
+    }
+
+    // Eventos perdidos (barramento desconectado) ou entregues fora do histórico: uma versão nova, depois de tudo
+    // que já foi reservado, manda os painéis recarregarem e invalida o ETag e os ?desde= anteriores a ela
+    public void recarregar() {
+        resincronizar(versaoFilaRepository.reservar());
+    }
+
+    // Igual em todas as instâncias que já receberam os mesmos eventos
+    public synchronized String versao() {
+        return Long.toString(versao);
+    }
+
+    // Estado mais recente de cada agendamento alterado depois da versão, na ordem da última alteração.
+    // Vazio quando a versão não está mais no histórico ou houve resincronização depois dela.
+    public synchronized Optional<AlteracoesFila> alteracoesDesde(String desde) {
+        List<EventoFilaDTO> eventos = eventosApos(desde);
+        if (eventos == null) {
+            return Optional.empty();
+        }
+
+        Map<UUID, AgendamentoResponseDTO> alterados = new LinkedHashMap<>();
+        for (EventoFilaDTO evento : eventos) {
+            if (evento.tipo() == TipoEventoFila.RESINCRONIZAR) {
+                return Optional.empty();
+            }
+            alterados.remove(evento.agendamento().id());
+            alterados.put(evento.agendamento().id(), evento.agendamento());
+        }
+        return Optional.of(new AlteracoesFila(Long.toString(versao), new ArrayList<>(alterados.values())));
+    }
+
+    public SseEmitter assinar(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Assinante assinante = new Assinante(emitter, capacidadeAssinante);
+
+        emitter.onCompletion(() -> assinantes.remove(assinante));
+        emitter.onTimeout(() -> assinantes.remove(assinante));
+        emitter.onError(erro -> assinantes.remove(assinante));
+
+        synchronized (this) {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                List<EventoFilaDTO> perdidos = eventosApos(lastEventId);
+                if (perdidos == null || perdidos.size() >= capacidadeAssinante) {
+                    assinante.oferecer(new EventoFilaDTO(versao, TipoEventoFila.RESINCRONIZAR, null, LocalDateTime.now()));
+                } else {
+                    perdidos.forEach(assinante::oferecer);
+                }
+            }
+            assinantes.add(assinante);
+        }
+
+        agendarEnvio(assinante);
+        return emitter;
+    }
+
+    public int totalAssinantes() {
+        return assinantes.size();
+    }
+
+    @Scheduled(fixedDelayString = "${sai.fila.eventos.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Assinante assinante : assinantes) {
+            if (assinante.oferecer(HEARTBEAT)) {
+                agendarEnvio(assinante);
+            }
+        }
+    }
+
+    // Versão que não chegou em espera-lacuna-ms provavelmente não vai chegar: segue para a próxima recebida
+    @Scheduled(fixedDelayString = "${sai.barramento.espera-lacuna-ms:2000}")
+    public void verificarLacuna() {
+        long primeira;
+        long ultima;
+        synchronized (this) {
+            if (lacunaDesde == 0 || System.currentTimeMillis() - lacunaDesde <= esperaLacunaMs) return;
+            primeira = versao + 1;
+            ultima = adiantados.firstKey() - 1;
+            versao = ultima;
+            lacunaDesde = 0;
+            distribuirAdiantados();
+        }
+        logger.debug("Versões {} a {} da fila não chegaram, seguindo sem elas", primeira, ultima);
+        assinantes.forEach(this::agendarEnvio);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        assinantes.forEach(assinante -> assinante.emitter.complete());
+        envio.shutdownNow();
+    }
+
+    private void receber(EventoFilaDTO evento) {
+        boolean atrasado;
+        synchronized (this) {
+            // Versão já pulada: quem está conectado recebe, mas o histórico não tem como incluí-la
+            atrasado = evento.id() <= versao;
+            if (atrasado) {
+                oferecer(evento);
+            } else {
+                adiantados.put(evento.id(), evento);
+                distribuirAdiantados();
+            }
+        }
+
+        assinantes.forEach(this::agendarEnvio);
+        if (atrasado) {
+            logger.debug("Versão {} da fila chegou depois de pulada, resincronizando", evento.id());
+            recarregar();
+        }
+    }
+
+    private void distribuirAdiantados() {
+        EventoFilaDTO proximo;
+        while ((proximo = adiantados.get(versao + 1)) != null) {
+            adiantados.remove(proximo.id());
+            versao = proximo.id();
+
+            historico.addLast(proximo);
+            if (historico.size() > capacidadeHistorico) {
+                piso = historico.removeFirst().id();
+            }
+            oferecer(proximo);
+        }
+        if (adiantados.isEmpty()) {
+            lacunaDesde = 0;
+        } else if (lacunaDesde == 0) {
+            lacunaDesde = System.currentTimeMillis();
+        }
+    }
+
+    private void oferecer(EventoFilaDTO evento) {
+        for (Assinante assinante : assinantes) {
+            if (!assinante.oferecer(evento)) {
+                // Assinante lento: encerra a conexão e ele retoma pelo Last-Event-ID
+                logger.warn("Buffer do assinante SSE cheio, encerrando conexão");
+                assinantes.remove(assinante);
+                assinante.emitter.complete();
+            }
+        }
+    }
+
+    // Retorna null quando a versão pedida já saiu do histórico ou esta instância ainda não chegou nela
+    private List<EventoFilaDTO> eventosApos(String lastEventId) {
+        long ultimoEventoId;
+        try {
+            ultimoEventoId = Long.parseLong(lastEventId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (ultimoEventoId < piso || ultimoEventoId > versao) return null;
+
+        List<EventoFilaDTO> perdidos = new ArrayList<>();
+        for (EventoFilaDTO evento : historico) {
+            if (evento.id() > ultimoEventoId) perdidos.add(evento);
+        }
+        return perdidos;
+    }
+
+    private void agendarEnvio(Assinante assinante) {
+        if (assinante.enviando.compareAndSet(false, true)) {
+            envio.execute(() -> enviarPendentes(assinante));
+        }
+    }
+
+    private void enviarPendentes(Assinante assinante) {
+        try {
+            EventoFilaDTO evento;
+            while ((evento = assinante.pendentes.poll()) != null) {
+                if (evento == HEARTBEAT) {
+                    assinante.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    assinante.emitter.send(SseEmitter.event()
+                            .id(Long.toString(evento.id()))
+                            .name(evento.tipo().name())
+                            .data(evento, MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            assinantes.remove(assinante);
+            assinante.emitter.completeWithError(e);
+            return;
+        } finally {
+            assinante.enviando.set(false);
+        }
+
+        // Evita perder um evento que chegou entre o último poll e a liberação da flag
+        if (!assinante.pendentes.isEmpty()) {
+            agendarEnvio(assinante);
+        }
+    }
+
+    public record AlteracoesFila(String versao, List<AgendamentoResponseDTO> agendamentos) {
+    }
+
+    private static final class Assinante {
+        private final SseEmitter emitter;
+        private final BlockingQueue<EventoFilaDTO> pendentes;
+        private final AtomicBoolean enviando = new AtomicBoolean(false);
+
+        private Assinante(SseEmitter emitter, int capacidade) {
+            this.emitter = emitter;
+            this.pendentes = new ArrayBlockingQueue<>(capacidade);
+        }
+
+        private boolean oferecer(EventoFilaDTO evento) {
+            return pendentes.offer(evento);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.devtec.sai.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+// Fila com duas classes (preferencial e regular), cada uma ordenada por chave.
+// Enfileirar e remover custam O(log n). A intercalação atende até N preferenciais seguidos
+// antes de um regular, quando as duas classes têm gente aguardando.
+// O contador de preferenciais seguidos é desta JVM e cada chamada reserva a sua vez nele de forma atômica
+// (reservarVez), então os guichês de uma instância seguem a sequência exata mesmo chamando juntos.
+// Com várias instâncias cada uma intercala as chamadas dos próprios guichês. A proporção N:1 vale no total, mas a sequência exata entre instâncias não é garantida
+// (guardar o contador no banco poria todas as chamadas na fila de uma mesma linha travada).
+public class FilaPrioridade<K, V> {
+
+    private final int preferenciaisPorRegular;
+    private final ConcurrentSkipListMap<K, V> preferenciais;
+    private final ConcurrentSkipListMap<K, V> regulares;
+    private int preferenciaisSeguidos;
+    private long reservas;
+
+    public FilaPrioridade(Comparator<? super K> ordem, int preferenciaisPorRegular) {
+        if (preferenciaisPorRegular < 1) {
+            throw new IllegalArgumentException("preferenciaisPorRegular deve ser pelo menos 1");
+        }
+        this.preferenciaisPorRegular = preferenciaisPorRegular;
+        this.preferenciais = new ConcurrentSkipListMap<>(ordem);
+        this.regulares = new ConcurrentSkipListMap<>(ordem);
+    }
+
+    public synchronized void enfileirar(K chave, boolean preferencial, V valor) {
+        (preferencial ? preferenciais : regulares).put(chave, valor);
+    }
+
+    public synchronized boolean remover(K chave) {
+        return preferenciais.remove(chave) != null || regulares.remove(chave) != null;
+    }
+
+    public synchronized boolean preferencialNaVez() {
+        return preferenciaisSeguidos < preferenciaisPorRegular;
+    }
+
+    // Decide a classe e já avança o contador no mesmo passo: guichês chamando ao mesmo tempo recebem vezes
+    // diferentes. O próximo em si sai do banco (chamarProximo com SKIP LOCKED).
+    public synchronized Vez reservarVez() {
+        return reservar(preferenciaisSeguidos < preferenciaisPorRegular);
+    }
+
+    // A classe da vez estava vazia e a chamada foi para a outra: a vez passa a contar como dela
+    public synchronized Vez corrigirVez(Vez vez, boolean preferencial) {
+        if (vez.preferencial() == preferencial) return vez;
+        desfazerVez(vez);
+        return reservar(preferencial);
+    }
+
+    // Chamada desfeita (rollback ou fila vazia). Se nenhuma vez foi reservada depois, volta o contador exato;
+    // senão só devolve o preferencial, já que um regular posterior zerou a sequência de qualquer forma
+    public synchronized void desfazerVez(Vez vez) {
+        if (vez.numero() == reservas) {
+            preferenciaisSeguidos = vez.seguidosAntes();
+        } else if (vez.preferencial() && preferenciaisSeguidos > 0) {
+            preferenciaisSeguidos--;
+        }
+    }
+
+    public synchronized void reiniciarVez() {
+        preferenciaisSeguidos = 0;
+    }
+
+    private Vez reservar(boolean preferencial) {
+        Vez vez = new Vez(preferencial, preferenciaisSeguidos, ++reservas);
+        preferenciaisSeguidos = preferencial ? preferenciaisSeguidos + 1 : 0;
+        return vez;
+    }
+
+    public List<V> ordemDeAtendimento(int limite) {
+        return intercalar(preferenciais.values(), regulares.values(), preferenciaisPorRegular, getPreferenciaisSeguidos(), limite);
+    }
+
+    // Visita quem é chamado antes da chave, sem montar a ordem: a própria classe até a chave e, da outra,
+    // só os que a intercalação põe na frente. Custa O(posição) em vez de O(fila) e não conta com size()
+    // dos mapas (que também percorre). Falso quando a chave não está na fila.
+    public boolean percorrerAFrente(K chave, Consumer<? super V> visitante) {
+        boolean preferencial;
+        if (preferenciais.containsKey(chave)) {
+            preferencial = true;
+        } else if (regulares.containsKey(chave)) {
+            preferencial = false;
+        } else {
+            return false;
+        }
+
+        long naClasse = 0;
+        for (V valor : (preferencial ? preferenciais : regulares).headMap(chave).values()) {
+            visitante.accept(valor);
+            naClasse++;
+        }
+
+        long daOutraClasse = outrosAFrente(preferencial, naClasse, preferenciaisPorRegular, getPreferenciaisSeguidos());
+        Iterator<V> outra = (preferencial ? regulares : preferenciais).values().iterator();
+        for (long i = 0; i < daOutraClasse && outra.hasNext(); i++) {
+            visitante.accept(outra.next());
+        }
+        return true;
+    }
+
+    public int tamanho() {
+        return preferenciais.size() + regulares.size();
+    }
+
+    public synchronized void limpar() {
+        preferenciais.clear();
+        regulares.clear();
+    }
+
+    public int getPreferenciaisPorRegular() {
+        return preferenciaisPorRegular;
+    }
+
+    public synchronized int getPreferenciaisSeguidos() {
+        return preferenciaisSeguidos;
+    }
+
+    // Quantos da outra classe a intercalação chama antes de quem tem 'naClasse' à frente na própria classe
+    // (limitado, na prática, a quantos da outra classe estão aguardando)
+    public static long outrosAFrente(boolean preferencial, long naClasse, int preferenciaisPorRegular, int preferenciaisSeguidos) {
+        long primeiraSequencia = Math.max(0, preferenciaisPorRegular - preferenciaisSeguidos);
+        if (preferencial) {
+            return naClasse < primeiraSequencia ? 0 : 1 + (naClasse - primeiraSequencia) / preferenciaisPorRegular;
+        }
+        return primeiraSequencia + naClasse * preferenciaisPorRegular;
+    }
+
+    public record Vez(boolean preferencial, int seguidosAntes, long numero) {
+    }
+
+    // Simula as próximas chamadas a partir de duas listas já ordenadas
+    public static <V> List<V> intercalar(Iterable<V> preferenciais, Iterable<V> regulares,
+                                         int preferenciaisPorRegular, int preferenciaisSeguidos, int limite) {
+        Iterator<V> pref = preferenciais.iterator();
+        Iterator<V> reg = regulares.iterator();
+        List<V> ordem = new ArrayList<>(Math.min(limite, 256));
+
+        int seguidos = preferenciaisSeguidos;
+        while (ordem.size() < limite && (pref.hasNext() || reg.hasNext())) {
+            boolean preferencial = pref.hasNext() && (!reg.hasNext() || seguidos < preferenciaisPorRegular);
+            ordem.add(preferencial ? pref.next() : reg.next());
+            seguidos = preferencial ? seguidos + 1 : 0;
+        }
+        return ordem;
+    }
+
+}
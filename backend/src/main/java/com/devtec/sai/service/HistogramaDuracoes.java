@@ -0,0 +1,63 @@
+package com.devtec.sai.service;
+
+// Histograma de durações em baldes de escala logarítmica (1 s a 8 h, cada balde 25% maior que o anterior).
+// Registrar custa O(1); o percentil percorre um número fixo de baldes. Ao passar da janela as contagens
+// caem pela metade, para o histograma acompanhar mudanças no ritmo do atendimento ao longo do dia.
+public class HistogramaDuracoes {
+
+    private static final double MINIMO = 1;
+    private static final double MAXIMO = 8 * 3600;
+    private static final double FATOR = 1.25;
+    private static final int BALDES = (int) Math.ceil(Math.log(MAXIMO / MINIMO) / Math.log(FATOR)) + 1;
+
+    private final long janela;
+    private final long[] contagens = new long[BALDES];
+    private long total;
+
+    public HistogramaDuracoes(long janela) {
+        if (janela < BALDES) {
+            throw new IllegalArgumentException("janela deve ser pelo menos " + BALDES);
+        }
+        this.janela = janela;
+    }
+
+    public synchronized void registrar(double segundos) {
+        contagens[balde(segundos)]++;
+        if (++total > janela) {
+            reduzirPelaMetade();
+        }
+    }
+
+    // Valor representativo (centro geométrico) do balde que contém o percentil; NaN sem amostras
+    public synchronized double percentil(double p) {
+        if (total == 0) return Double.NaN;
+
+        long alvo = Math.max(1, (long) Math.ceil(p * total));
+        long acumulado = 0;
+        for (int i = 0; i < BALDES; i++) {
+            acumulado += contagens[i];
+            if (acumulado >= alvo) {
+                return i == 0 ? MINIMO / 2 : MINIMO * Math.pow(FATOR, i - 0.5);
+            }
+        }
+        return MAXIMO;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    // Balde 0: abaixo do mínimo; balde i: [MINIMO * FATOR^(i-1), MINIMO * FATOR^i); o último acumula o excesso
+    private static int balde(double segundos) {
+        if (segundos < MINIMO) return 0;
+        return Math.min(BALDES - 1, 1 + (int) (Math.log(segundos / MINIMO) / Math.log(FATOR)));
+    }
+
+    private void reduzirPelaMetade() {
+        total = 0;
+        for (int i = 0; i < BALDES; i++) {
+            contagens[i] = (contagens[i] + 1) / 2;
+            total += contagens[i];
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.AgendamentosRequestDTO;
+import com.devtec.sai.exception.ChaveIdempotenciaReutilizadaException;
+import com.devtec.sai.exception.ParametroInvalidoException;
+import com.devtec.sai.repository.ChavesIdempotenciaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Idempotency-Key da criação de agendamentos. Em memória, repetições simultâneas da mesma chave
+// esperam a primeira execução em vez de criar de novo; a tabela tb_chaves_idempotencia cobre
+// repetições que caem em outra instância ou depois que a entrada saiu da memória.
+// A chave vale para um corpo só: o hash do corpo é guardado junto e uma repetição com outro corpo é recusada.
+@Service
+public class IdempotenciaService {
+
+    public static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    private final ChavesIdempotenciaRepository repository;
+    private final ObjectMapper objectMapper;
+    private final int capacidade;
+    private final Duration validade;
+
+    private final Map<String, Entrada> emMemoria = new ConcurrentHashMap<>();
+
+    private final Counter repetidasMemoria;
+    private final Counter repetidasBanco;
+    private final Counter novas;
+    private final Counter corpoDiferente;
+
+    public IdempotenciaService(ChavesIdempotenciaRepository repository, ObjectMapper objectMapper, MeterRegistry registry,
+                               @Value("${sai.idempotencia.capacidade:10000}") int capacidade,
+                               @Value("${sai.idempotencia.validade-horas:24}") long validadeHoras) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.capacidade = capacidade;
+        this.validade = Duration.ofHours(validadeHoras);
+
+        this.repetidasMemoria = Counter.builder("sai.idempotencia.requisicoes")
+                .tag("resultado", "repetida_memoria")
+                .register(registry);
+        this.repetidasBanco = Counter.builder("sai.idempotencia.requisicoes")
+                .tag("resultado", "repetida_banco")
+                .register(registry);
+        this.novas = Counter.builder("sai.idempotencia.requisicoes")
+                .tag("resultado", "nova")
+                .register(registry);
+        this.corpoDiferente = Counter.builder("sai.idempotencia.requisicoes")
+                .tag("resultado", "corpo_diferente")
+                .register(registry);
+        registry.gaugeMapSize("sai.idempotencia.tamanho", List.of(), emMemoria);
+    }
+
+    // Devolve a resposta já dada para a chave ou executa 'criacao' uma única vez
+    public AgendamentoResponseDTO executar(String chave, AgendamentosRequestDTO dados,
+                                           Supplier<AgendamentoResponseDTO> criacao) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new ParametroInvalidoException("Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+
+        Instant agora = Instant.now();
+        liberarEspaco(agora);
+
+        String hash = hash(dados);
+        Entrada minha = new Entrada(new CompletableFuture<>(), hash, agora.plus(validade));
+        Entrada entrada = emMemoria.compute(chave, (k, atual) ->
+                atual != null && atual.expiraEm().isAfter(agora) ? atual : minha);
+        if (entrada != minha) {
+            if (!entrada.hash().equals(hash)) {
+                throw chaveReutilizada();
+            }
+            repetidasMemoria.increment();
+            return aguardar(entrada.resposta());
+        }
+
+        try {
+            Optional<AgendamentoResponseDTO> registrada = respostaRegistrada(chave, hash);
+            if (registrada.isPresent()) {
+                repetidasBanco.increment();
+            } else {
+                novas.increment();
+            }
+            AgendamentoResponseDTO resposta = registrada.orElseGet(criacao);
+            minha.resposta().complete(resposta);
+            return resposta;
+        } catch (RuntimeException e) {
+            // Falhou: a próxima tentativa com a mesma chave executa de novo
+            emMemoria.remove(chave, minha);
+            minha.resposta().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Chamado dentro da transação que criou o agendamento; false quando outra requisição registrou a chave antes
+    public boolean registrar(String chave, AgendamentosRequestDTO dados, AgendamentoResponseDTO resposta) {
+        try {
+            return repository.registrar(chave, hash(dados), resposta.id(), objectMapper.writeValueAsString(resposta));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Optional<AgendamentoResponseDTO> respostaRegistrada(String chave, AgendamentosRequestDTO dados) {
+        return respostaRegistrada(chave, hash(dados));
+    }
+
+    private Optional<AgendamentoResponseDTO> respostaRegistrada(String chave, String hash) {
+        return repository.buscar(chave).map(registrada -> {
+            if (registrada.hashRequisicao() != null && !registrada.hashRequisicao().equals(hash)) {
+                throw chaveReutilizada();
+            }
+            try {
+                return objectMapper.readValue(registrada.resposta(), AgendamentoResponseDTO.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${sai.idempotencia.limpeza-ms:600000}")
+    public void removerExpiradas() {
+        Instant agora = Instant.now();
+        emMemoria.values().removeIf(entrada -> !entrada.expiraEm().isAfter(agora));
+        repository.removerAnteriores(LocalDateTime.now().minus(validade));
+    }
+
+    private void liberarEspaco(Instant agora) {
+        if (emMemoria.size() >= capacidade) {
+            emMemoria.values().removeIf(entrada -> !entrada.expiraEm().isAfter(agora));
+            if (emMemoria.size() >= capacidade) {
+                // As concluídas continuam respondidas pelo banco
+                emMemoria.values().removeIf(entrada -> entrada.resposta().isDone());
+            }
+        }
+    }
+
+    // SHA-256 do corpo já convertido: espaços e ordem dos campos no JSON recebido não contam
+    private String hash(AgendamentosRequestDTO dados) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(dados)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ChaveIdempotenciaReutilizadaException chaveReutilizada() {
+        corpoDiferente.increment();
+        return new ChaveIdempotenciaReutilizadaException("Idempotency-Key já usada com outro corpo de requisição");
+    }
+
+    private static AgendamentoResponseDTO aguardar(CompletableFuture<AgendamentoResponseDTO> resposta) {
+        try {
+            return resposta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private record Entrada(CompletableFuture<AgendamentoResponseDTO> resposta, String hash, Instant expiraEm) {
+    }
+}
@@ -0,0 +1,275 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.CursorAgendamentoDTO;
+import com.devtec.sai.model.StatusAgendamento;
+import com.devtec.sai.repository.AgendamentoSpecifications;
+import com.devtec.sai.repository.AgendamentosRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Índice em memória da fila do dia, mantido por write-through pelo AgendamentoService.
+// Leituras não travam; escritas e reconstrução são serializadas.
+@Service
+public class IndiceFilaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceFilaService.class);
+
+    private static final int LOTE_CARGA = 1000;
+
+    // Mesma ordem do Postgres: data_hora_chegada e depois o uuid comparado byte a byte (sem sinal)
+    static final Comparator<ChaveFila> ORDEM = Comparator
+            .comparing(ChaveFila::dataHoraChegada)
+            .thenComparing(ChaveFila::id, IndiceFilaService::compararUuid);
+
+    private final AgendamentosRepository repository;
+    private final boolean habilitado;
+
+    private final ConcurrentSkipListMap<ChaveFila, AgendamentoResponseDTO> todos = new ConcurrentSkipListMap<>(ORDEM);
+    private final Map<StatusAgendamento, ConcurrentSkipListMap<ChaveFila, AgendamentoResponseDTO>> porStatus = new EnumMap<>(StatusAgendamento.class);
+    private final Map<StatusAgendamento, AtomicLong> contagem = new EnumMap<>(StatusAgendamento.class);
+    private final Map<StatusAgendamento, ConcurrentHashMap<String, AtomicLong>> contagemPorTipo = new EnumMap<>(StatusAgendamento.class);
+    private final ConcurrentHashMap<UUID, AgendamentoResponseDTO> porId = new ConcurrentHashMap<>();
+    // Só os AGUARDANDO, separados por classe de prioridade
+    private final FilaPrioridade<ChaveFila, AgendamentoResponseDTO> aguardando;
+
+    private volatile boolean pronto;
+
+    public IndiceFilaService(AgendamentosRepository repository,
+                             @Value("${sai.fila.memoria.habilitada:true}") boolean habilitado,
+                             @Value("${sai.fila.preferenciais-por-regular:2}") int preferenciaisPorRegular) {
+        this.repository = repository;
+        this.habilitado = habilitado;
+        this.aguardando = new FilaPrioridade<>(ORDEM, preferenciaisPorRegular);
+
+        for (StatusAgendamento status : StatusAgendamento.values()) {
+            porStatus.put(status, new ConcurrentSkipListMap<>(ORDEM));
+            contagem.put(status, new AtomicLong());
+            contagemPorTipo.put(status, new ConcurrentHashMap<>());
+        }
+    }
+
+    // Quando desligado ou ainda carregando, o AgendamentoService usa o banco
+    public boolean disponivel() {
+        return habilitado && pronto;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarNaInicializacao() {
+        if (habilitado) {
+            reconstruir();
+        }
+    }
+
+    public synchronized void reconstruir() {
+        if (!habilitado) return;
+
+        pronto = false;
+        limparEstruturas();
+
+        CursorAgendamentoDTO cursor = null;
+        List<AgendamentoResponseDTO> lote;
+        do {
+            lote = repository.consultarResumo(AgendamentoSpecifications.aposCursor(cursor), LOTE_CARGA);
+            lote.forEach(this::inserir);
+
+            if (!lote.isEmpty()) {
+                AgendamentoResponseDTO ultimo = lote.get(lote.size() - 1);
+                cursor = new CursorAgendamentoDTO(ultimo.dataHoraChegada(), ultimo.id());
+            }
+        } while (lote.size() == LOTE_CARGA);
+
+        pronto = true;
+        logger.info("Índice da fila carregado com {} agendamentos", porId.size());
+    }
+
+    public synchronized void atualizar(AgendamentoResponseDTO agendamento) {
+        if (!habilitado) return;
+
+        AgendamentoResponseDTO anterior = porId.get(agendamento.id());
+        if (anterior != null) {
+            remover(anterior);
+        }
+        inserir(agendamento);
+    }
+
+    // Expediente novo: a intercalação também recomeça
+    public synchronized void limpar() {
+        limparEstruturas();
+        aguardando.reiniciarVez();
+    }
+
+    public Optional<AgendamentoResponseDTO> buscar(UUID id) {
+        return Optional.ofNullable(porId.get(id));
+    }
+
+    public List<AgendamentoResponseDTO> consultar(StatusAgendamento status, String tipoServico, CursorAgendamentoDTO cursor, int quantidade) {
+        NavigableMap<ChaveFila, AgendamentoResponseDTO> fonte = status == null ? todos : porStatus.get(status);
+        if (cursor != null) {
+            fonte = fonte.tailMap(new ChaveFila(cursor.dataHoraChegada(), cursor.id()), false);
+        }
+
+        boolean filtrarTipo = tipoServico != null && !tipoServico.isBlank();
+
+        List<AgendamentoResponseDTO> resultado = new ArrayList<>(Math.min(quantidade, 256));
+        for (AgendamentoResponseDTO agendamento : fonte.values()) {
+            if (filtrarTipo && !tipoServico.equals(agendamento.tipoServico())) continue;
+            resultado.add(agendamento);
+            if (resultado.size() == quantidade) break;
+        }
+        return resultado;
+    }
+
+    public List<AgendamentoResponseDTO> ordemDeAtendimento(String tipoServico, int quantidade) {
+        if (tipoServico == null || tipoServico.isBlank()) {
+            return aguardando.ordemDeAtendimento(quantidade);
+        }
+
+        List<AgendamentoResponseDTO> preferenciais = new ArrayList<>();
+        List<AgendamentoResponseDTO> regulares = new ArrayList<>();
+        for (AgendamentoResponseDTO agendamento : porStatus.get(StatusAgendamento.AGUARDANDO).values()) {
+            if (!tipoServico.equals(agendamento.tipoServico())) continue;
+            List<AgendamentoResponseDTO> classe = agendamento.prioridade().preferencial() ? preferenciais : regulares;
+            if (classe.size() < quantidade) classe.add(agendamento);
+            if (preferenciais.size() == quantidade && regulares.size() == quantidade) break;
+        }
+        return intercalar(preferenciais, regulares, quantidade);
+    }
+
+    // A intercalação vale mesmo com o índice desligado: o estado é só o contador de preferenciais seguidos
+    public boolean preferencialNaVez() {
+        return aguardando.preferencialNaVez();
+    }
+
+    public FilaPrioridade.Vez reservarVez() {
+        return aguardando.reservarVez();
+    }
+
+    public FilaPrioridade.Vez corrigirVez(FilaPrioridade.Vez vez, boolean preferencial) {
+        return aguardando.corrigirVez(vez, preferencial);
+    }
+
+    public void desfazerVez(FilaPrioridade.Vez vez) {
+        aguardando.desfazerVez(vez);
+    }
+
+    // Quantos de cada tipo serão chamados antes do agendamento; vazio quando ele não está aguardando
+    public Optional<Map<String, Long>> contarAFrentePorTipo(AgendamentoResponseDTO agendamento) {
+        Map<String, Long> porTipo = new HashMap<>();
+        boolean aguardandoNaFila = aguardando.percorrerAFrente(chave(agendamento),
+                outro -> porTipo.merge(outro.tipoServico(), 1L, Long::sum));
+        return aguardandoNaFila ? Optional.of(porTipo) : Optional.empty();
+    }
+
+    // Mesma conta do contarAFrentePorTipo para quem consulta o banco (índice desligado)
+    public long outrosAFrente(boolean preferencial, long naClasse) {
+        return FilaPrioridade.outrosAFrente(preferencial, naClasse, aguardando.getPreferenciaisPorRegular(),
+                aguardando.getPreferenciaisSeguidos());
+    }
+
+    public <T> List<T> intercalar(List<T> preferenciais, List<T> regulares, int quantidade) {
+        return FilaPrioridade.intercalar(preferenciais, regulares, aguardando.getPreferenciaisPorRegular(),
+                aguardando.getPreferenciaisSeguidos(), quantidade);
+    }
+
+    public Map<StatusAgendamento, Long> contarPorStatus() {
+        Map<StatusAgendamento, Long> resultado = new EnumMap<>(StatusAgendamento.class);
+        contagem.forEach((status, total) -> resultado.put(status, total.get()));
+        return resultado;
+    }
+
+    public Map<StatusAgendamento, Map<String, Long>> contarPorStatusETipo() {
+        Map<StatusAgendamento, Map<String, Long>> resultado = new EnumMap<>(StatusAgendamento.class);
+        contagemPorTipo.forEach((status, porTipo) -> {
+            Map<String, Long> totais = new HashMap<>();
+            porTipo.forEach((tipo, total) -> totais.put(tipo, total.get()));
+            resultado.put(status, totais);
+        });
+        return resultado;
+    }
+
+    // Compara o índice com o banco e reconstrói se houver divergência
+    @Scheduled(fixedDelayString = "${sai.fila.memoria.verificacao-ms:300000}",
+            initialDelayString = "${sai.fila.memoria.verificacao-ms:300000}")
+    public void verificarConsistencia() {
+        if (!disponivel()) return;
+
+        Map<UUID, StatusAgendamento> banco = new HashMap<>();
+        repository.listarSituacoes().forEach(situacao -> banco.put(situacao.getId(), situacao.getStatus()));
+
+        Map<UUID, StatusAgendamento> memoria = new HashMap<>();
+        porId.forEach((id, agendamento) -> memoria.put(id, agendamento.status()));
+
+        if (!banco.equals(memoria)) {
+            logger.warn("Índice da fila divergente do banco ({} em memória, {} no banco). Reconstruindo.",
+                    memoria.size(), banco.size());
+            reconstruir();
+        }
+    }
+
+    private void inserir(AgendamentoResponseDTO agendamento) {
+        ChaveFila chave = chave(agendamento);
+        porId.put(agendamento.id(), agendamento);
+        todos.put(chave, agendamento);
+        porStatus.get(agendamento.status()).put(chave, agendamento);
+        contagem.get(agendamento.status()).incrementAndGet();
+        contagemPorTipo.get(agendamento.status())
+                .computeIfAbsent(agendamento.tipoServico(), tipo -> new AtomicLong())
+                .incrementAndGet();
+        if (agendamento.status() == StatusAgendamento.AGUARDANDO) {
+            aguardando.enfileirar(chave, agendamento.prioridade().preferencial(), agendamento);
+        }
+    }
+
+    private void remover(AgendamentoResponseDTO agendamento) {
+        ChaveFila chave = chave(agendamento);
+        porId.remove(agendamento.id());
+        todos.remove(chave);
+        if (porStatus.get(agendamento.status()).remove(chave) != null) {
+            contagem.get(agendamento.status()).decrementAndGet();
+            contagemPorTipo.get(agendamento.status()).get(agendamento.tipoServico()).decrementAndGet();
+        }
+        aguardando.remover(chave);
+    }
+
+    private void limparEstruturas() {
+        porId.clear();
+        todos.clear();
+        porStatus.values().forEach(Map::clear);
+        contagem.values().forEach(total -> total.set(0));
+        contagemPorTipo.values().forEach(Map::clear);
+        aguardando.limpar();
+    }
+
+    private static ChaveFila chave(AgendamentoResponseDTO agendamento) {
+        return new ChaveFila(Objects.requireNonNull(agendamento.dataHoraChegada()), agendamento.id());
+    }
+
+    private static int compararUuid(UUID a, UUID b) {
+        int alto = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return alto != 0 ? alto : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    record ChaveFila(LocalDateTime dataHoraChegada, UUID id) {
+    }
+}
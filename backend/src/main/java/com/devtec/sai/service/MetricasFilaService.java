@@ -0,0 +1,149 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.model.StatusAgendamento;
+import com.devtec.sai.model.TipoEventoFila;
+import com.devtec.sai.repository.AgendamentosRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Métricas de domínio da fila (exportadas em /actuator/prometheus).
+// tipoServico é texto livre: só os primeiros sai.metricas.max-tipos-servico valores viram tag, o resto cai em OUTROS.
+@Service
+public class MetricasFilaService {
+
+    private static final String OUTROS = "OUTROS";
+
+    private final MeterRegistry registry;
+    private final IndiceFilaService indiceFila;
+    private final AgendamentosRepository repository;
+    private final int maximoTipos;
+
+    private final Set<String> tiposConhecidos = ConcurrentHashMap.newKeySet();
+    private final MultiGauge porStatusETipo;
+    // Última contagem lida do banco, usada quando o índice em memória está desligado
+    private volatile Map<StatusAgendamento, Map<String, Long>> ultimaContagem = new EnumMap<>(StatusAgendamento.class);
+
+    public MetricasFilaService(MeterRegistry registry, IndiceFilaService indiceFila, AgendamentosRepository repository,
+                               @Value("${sai.metricas.max-tipos-servico:50}") int maximoTipos) {
+        this.registry = registry;
+        this.indiceFila = indiceFila;
+        this.repository = repository;
+        this.maximoTipos = maximoTipos;
+
+        this.porStatusETipo = MultiGauge.builder("sai.fila.agendamentos")
+                .description("Agendamentos por status e tipo de serviço")
+                .register(registry);
+
+        for (StatusAgendamento status : StatusAgendamento.values()) {
+            Gauge.builder("sai.fila.agendamentos.status", () -> totalPorStatus(status))
+                    .description("Agendamentos por status")
+                    .tag("status", status.name())
+                    .register(registry);
+        }
+    }
+
+    // Chamado pelo AgendamentoService depois do commit, junto com o índice e os eventos
+    public void registrar(TipoEventoFila tipo, AgendamentoResponseDTO agendamento) {
+        String tipoServico = tagTipo(agendamento.tipoServico());
+
+        if (tipo == TipoEventoFila.CRIADO) {
+            Counter.builder("sai.agendamentos.criados")
+                    .description("Agendamentos criados")
+                    .tags("tipo_servico", tipoServico, "prioridade", agendamento.prioridade().name())
+                    .register(registry)
+                    .increment();
+            return;
+        }
+
+        switch (agendamento.status()) {
+            case EM_ATENDIMENTO, CONCLUIDO -> esperaAte(agendamento.status(), tipoServico)
+                    .record(Duration.between(agendamento.dataHoraChegada(), LocalDateTime.now()));
+            case CANCELADO -> Counter.builder("sai.agendamentos.cancelados")
+                    .description("Agendamentos cancelados")
+                    .tag("tipo_servico", tipoServico)
+                    .register(registry)
+                    .increment();
+            default -> { }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${sai.metricas.fila.atualizacao-ms:15000}")
+    public void atualizarGauges() {
+        Map<StatusAgendamento, Map<String, Long>> contagem = contarPorStatusETipo();
+
+        List<MultiGauge.Row<?>> linhas = new ArrayList<>();
+        contagem.forEach((status, porTipo) -> {
+            Map<String, Long> agrupado = new HashMap<>();
+            porTipo.forEach((tipo, total) -> agrupado.merge(tagTipo(tipo), total, Long::sum));
+            agrupado.forEach((tipo, total) ->
+                    linhas.add(MultiGauge.Row.of(Tags.of("status", status.name(), "tipo_servico", tipo), total)));
+        });
+        porStatusETipo.register(linhas, true);
+    }
+
+    private Map<StatusAgendamento, Map<String, Long>> contarPorStatusETipo() {
+        if (indiceFila.disponivel()) {
+            return indiceFila.contarPorStatusETipo();
+        }
+
+        Map<StatusAgendamento, Map<String, Long>> contagem = new EnumMap<>(StatusAgendamento.class);
+        repository.contarPorStatusETipo().forEach(item -> contagem
+                .computeIfAbsent(item.getStatus(), status -> new HashMap<>())
+                .put(item.getTipoServico(), item.getTotal()));
+        ultimaContagem = contagem;
+        return contagem;
+    }
+
+    private double totalPorStatus(StatusAgendamento status) {
+        if (indiceFila.disponivel()) {
+            return indiceFila.contarPorStatus().getOrDefault(status, 0L);
+        }
+        return ultimaContagem.getOrDefault(status, Map.of()).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Espera do cidadão desde a chegada até ser chamado (EM_ATENDIMENTO) ou até o fim do atendimento (CONCLUIDO)
+    private Timer esperaAte(StatusAgendamento etapa, String tipoServico) {
+        return Timer.builder("sai.atendimento.espera")
+                .description("Tempo desde a chegada até a etapa do atendimento")
+                .tags("etapa", etapa.name(), "tipo_servico", tipoServico)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofHours(8))
+                .register(registry);
+    }
+
+    private String tagTipo(String tipoServico) {
+        if (tipoServico == null || tipoServico.isBlank()) {
+            return OUTROS;
+        }
+        if (tiposConhecidos.contains(tipoServico)) {
+            return tipoServico;
+        }
+        if (tiposConhecidos.size() < maximoTipos) {
+            tiposConhecidos.add(tipoServico);
+            return tipoServico;
+        }
+        return OUTROS;
+    }
+}
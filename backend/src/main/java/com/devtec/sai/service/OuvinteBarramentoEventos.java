@@ -0,0 +1,256 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.EventoBarramentoDTO;
+import com.devtec.sai.dto.MensagemBarramentoDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Aplica nesta instância os eventos publicados pelas outras no barramento (LISTEN numa conexão própria,
+// fora do pool). Quando a conexão cai ou falta uma sequência de alguma origem, os eventos perdidos não
+// têm como ser recuperados: o estado em memória é recarregado do banco e os painéis são avisados.
+@Component
+public class OuvinteBarramentoEventos {
+
+    private static final Logger logger = LoggerFactory.getLogger(OuvinteBarramentoEventos.class);
+
+    private final BarramentoEventosService barramento;
+    private final IndiceFilaService indiceFila;
+    private final FilaEventosService filaEventosService;
+    private final EstimativaEsperaService estimativaEspera;
+    private final EpocaTokenService epocaTokenService;
+    private final MeterRegistry registry;
+
+    private final String url;
+    private final Properties propriedades = new Properties();
+    private final long intervaloMs;
+    private final long esperaLacunaMs;
+    private final long reconexaoMaximaMs;
+
+    private final Map<String, Sequencias> porOrigem = new ConcurrentHashMap<>();
+    private final Counter aplicados;
+
+    private volatile boolean ativo;
+    private volatile Connection conexao;
+    private Thread thread;
+
+    public OuvinteBarramentoEventos(BarramentoEventosService barramento, IndiceFilaService indiceFila,
+                                    FilaEventosService filaEventosService, EstimativaEsperaService estimativaEspera,
+                                    EpocaTokenService epocaTokenService, MeterRegistry registry,
+                                    @Value("${spring.datasource.url}") String url,
+                                    @Value("${spring.datasource.username}") String usuario,
+                                    @Value("${spring.datasource.password}") String senha,
+                                    @Value("${sai.barramento.intervalo-ms:5000}") long intervaloMs,
+                                    @Value("${sai.barramento.espera-lacuna-ms:2000}") long esperaLacunaMs,
+                                    @Value("${sai.barramento.reconexao-maxima-ms:30000}") long reconexaoMaximaMs) {
+        this.barramento = barramento;
+        this.indiceFila = indiceFila;
+        this.filaEventosService = filaEventosService;
+        this.estimativaEspera = estimativaEspera;
+        this.epocaTokenService = epocaTokenService;
+        this.registry = registry;
+        this.url = url;
+        this.intervaloMs = intervaloMs;
+        this.esperaLacunaMs = esperaLacunaMs;
+        this.reconexaoMaximaMs = reconexaoMaximaMs;
+
+        propriedades.setProperty("user", usuario);
+        propriedades.setProperty("password", senha);
+        propriedades.setProperty("ApplicationName", "sai-barramento");
+        // Conexão meio aberta não fica pendurada: o SELECT 1 de cada intervalo ocioso estoura o timeout
+        propriedades.setProperty("socketTimeout", Long.toString(Math.max(10, intervaloMs * 3 / 1000)));
+
+        this.aplicados = Counter.builder("sai.barramento.eventos")
+                .description("Eventos de outras instâncias aplicados localmente")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!barramento.isHabilitado()) return;
+
+        ativo = true;
+        thread = Thread.ofVirtual().name("sai-barramento").start(this::escutar);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        ativo = false;
+        Connection atual = conexao;
+        if (atual != null) {
+            try {
+                atual.close();
+            } catch (SQLException e) {
+                logger.debug("Erro ao fechar a conexão do barramento", e);
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // Uma origem com sequência faltando há mais de espera-lacuna-ms perdeu mensagem (e não só chegou fora de ordem)
+    @Scheduled(fixedDelayString = "${sai.barramento.espera-lacuna-ms:2000}")
+    public void verificarLacunas() {
+        long limite = System.currentTimeMillis() - esperaLacunaMs;
+        boolean perdeu = false;
+        for (Sequencias sequencias : porOrigem.values()) {
+            perdeu |= sequencias.descartarLacunaAnteriorA(limite);
+        }
+        if (perdeu) {
+            ressincronizar("lacuna");
+        }
+    }
+
+    private void escutar() {
+        long espera = 1000;
+        boolean primeira = true;
+
+        while (ativo) {
+            try (Connection c = DriverManager.getConnection(url, propriedades);
+                 Statement statement = c.createStatement()) {
+                conexao = c;
+                statement.execute("LISTEN " + BarramentoEventosService.CANAL);
+
+                // Na primeira conexão só há o que recuperar se o índice carregou antes do LISTEN; as versões
+                // confirmadas entre a criação do FilaEventosService e o LISTEN são puladas como lacuna
+                porOrigem.clear();
+                if (!primeira || indiceFila.disponivel()) {
+                    ressincronizar(primeira ? "inicio" : "reconexao");
+                }
+                primeira = false;
+                espera = 1000;
+
+                PGConnection pg = c.unwrap(PGConnection.class);
+                while (ativo) {
+                    PGNotification[] notificacoes = pg.getNotifications((int) intervaloMs);
+                    if (notificacoes == null || notificacoes.length == 0) {
+                        statement.execute("SELECT 1");
+                        continue;
+                    }
+                    for (PGNotification notificacao : notificacoes) {
+                        receber(notificacao.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Falha ao aplicar um evento conta como conexão perdida: a próxima conexão recarrega tudo
+                if (!ativo) return;
+                logger.warn("Conexão do barramento de eventos perdida, nova tentativa em {} ms: {}", espera, e.getMessage());
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException interrompido) {
+                    return;
+                }
+                espera = Math.min(espera * 2, reconexaoMaximaMs);
+            } finally {
+                conexao = null;
+            }
+        }
+    }
+
+    private void receber(String payload) {
+        MensagemBarramentoDTO mensagem;
+        try {
+            mensagem = barramento.ler(payload);
+        } catch (RuntimeException e) {
+            logger.warn("Mensagem inválida no barramento de eventos, ignorada", e);
+            return;
+        }
+        if (barramento.getOrigem().equals(mensagem.origem())) return;
+
+        if (!BarramentoEventosService.ORIGEM_BANCO.equals(mensagem.origem())) {
+            porOrigem.computeIfAbsent(mensagem.origem(), origem -> new Sequencias()).registrar(mensagem.sequencia());
+        }
+        int proxima = 0;
+        for (EventoBarramentoDTO evento : mensagem.eventos()) {
+            long versao = evento.tipo().alteraFila() && mensagem.versoes() != null ? mensagem.versoes().get(proxima++) : 0;
+            aplicar(evento, versao);
+        }
+    }
+
+    private void aplicar(EventoBarramentoDTO evento, long versao) {
+        switch (evento.tipo()) {
+            case AGENDAMENTO -> {
+                indiceFila.atualizar(evento.agendamento());
+                filaEventosService.publicar(versao, evento.tipoFila(), evento.agendamento());
+                estimativaEspera.registrar(evento.agendamento());
+            }
+            case USUARIO -> epocaTokenService.descartar(evento.login());
+            case RESINCRONIZAR -> {
+                indiceFila.reconstruir();
+                filaEventosService.resincronizar(versao);
+                estimativaEspera.limparAtendimentos();
+            }
+        }
+        aplicados.increment();
+    }
+
+    private void ressincronizar(String motivo) {
+        logger.info("Barramento de eventos: recarregando o estado do banco ({})", motivo);
+        Counter.builder("sai.barramento.ressincronizacoes")
+                .description("Recargas do estado em memória por eventos perdidos")
+                .tag("motivo", motivo)
+                .register(registry)
+                .increment();
+
+        epocaTokenService.limpar();
+        indiceFila.reconstruir();
+        estimativaEspera.limparAtendimentos();
+        filaEventosService.recarregar();
+    }
+
+    // Maior sequência contínua recebida de uma origem e as que chegaram adiantadas.
+    // Transações concorrentes podem fazer o commit fora da ordem em que pegaram a sequência.
+    private static final class Sequencias {
+
+        private long ultima = -1;
+        private final TreeSet<Long> adiantadas = new TreeSet<>();
+        private long lacunaDesde;
+
+        synchronized void registrar(long sequencia) {
+            if (ultima < 0) {
+                ultima = sequencia;
+                return;
+            }
+            if (sequencia <= ultima) return;
+
+            adiantadas.add(sequencia);
+            while (!adiantadas.isEmpty() && adiantadas.first() == ultima + 1) {
+                ultima = adiantadas.pollFirst();
+            }
+            if (adiantadas.isEmpty()) {
+                lacunaDesde = 0;
+            } else if (lacunaDesde == 0) {
+                lacunaDesde = System.currentTimeMillis();
+            }
+        }
+
+        // Desiste da sequência que falta e segue a partir da maior recebida
+        synchronized boolean descartarLacunaAnteriorA(long limite) {
+            if (lacunaDesde == 0 || lacunaDesde > limite) return false;
+
+            ultima = adiantadas.last();
+            adiantadas.clear();
+            lacunaDesde = 0;
+            return true;
+        }
+    }
+}
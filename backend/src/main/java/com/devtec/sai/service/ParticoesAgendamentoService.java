@@ -0,0 +1,41 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.repository.ParticoesAgendamentoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+// Mantém partições prontas para hoje e amanhã; o que cair fora delas vai para a partição padrão
+@Service
+public class ParticoesAgendamentoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParticoesAgendamentoService.class);
+
+    private final ParticoesAgendamentoRepository repository;
+
+    public ParticoesAgendamentoService(ParticoesAgendamentoRepository repository) {
+        this.repository = repository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${sai.particoes.cron:0 5 * * * *}")
+    public void prepararParticoes() {
+        repository.prepararParticoes(LocalDate.now());
+    }
+
+    // Só dentro de transação: segura as escritas até o commit
+    public void bloquearEscritas() {
+        repository.bloquearEscritas();
+    }
+
+    public int arquivarExpediente() {
+        int arquivadas = repository.arquivarExpediente(LocalDate.now());
+        logger.info("Expediente arquivado: {} partição(ões) movida(s) para tb_agendamentos_historico", arquivadas);
+        return arquivadas;
+    }
+}
@@ -1,7 +1,13 @@
 package com.devtec.sai.service;
 
-import com.devtec.sai.model.Agendamento;
-import com.devtec.sai.model.Usuario;
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.CursorAgendamentoDTO;
+import com.devtec.sai.model.StatusAgendamento;
+import com.devtec.sai.repository.AgendamentoSpecifications;
+import com.devtec.sai.repository.AgendamentosRepository;
+import com.devtec.sai.util.ArquivoAtomicoOutputStream;
+import com.devtec.sai.util.ContadorOutputStream;
+import com.devtec.sai.util.TeeOutputStream;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
@@ -9,30 +15,79 @@ import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.*;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
+// Relatório em modo streaming: as linhas vêm do banco em lotes e a tabela é descarregada
+// no PDF a cada lote, então o heap não cresce com o tamanho do expediente.
 @Service
 public class RelatorioService {
 
-    public File gerarRelatorio(List<Agendamento> agendamentos) {
+    private final AgendamentosRepository repository;
+    private final int tamanhoLote;
+    private final String diretorioCopia;
+    private final MeterRegistry registry;
+    private final DistributionSummary tamanhoBytes;
+    private final DistributionSummary linhas;
+
+    public RelatorioService(AgendamentosRepository repository, MeterRegistry registry,
+                            @Value("${sai.relatorio.lote:500}") int tamanhoLote,
+                            @Value("${sai.relatorio.diretorio:}") String diretorioCopia) {
+        this.repository = repository;
+        this.tamanhoLote = tamanhoLote;
+        this.diretorioCopia = diretorioCopia;
+        this.registry = registry;
+
+        this.tamanhoBytes = DistributionSummary.builder("sai.relatorio.tamanho")
+                .description("Tamanho do PDF gerado")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.linhas = DistributionSummary.builder("sai.relatorio.linhas")
+                .description("Agendamentos listados no relatório")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
 
-        try {
+    // Recebe o andamento a cada lote escrito
+    @FunctionalInterface
+    public interface Progresso {
+        void registrar(long processados, long total);
+    }
 
-            File pasta = new File("/app/relatorios");
+    public String nomeArquivo() {
+        return "relatorio_" + LocalDate.now() + ".pdf";
+    }
 
-            if (!pasta.exists()) {
-                pasta.mkdirs();
-            }
+    // Escreve o PDF direto em 'destino' (sem fechá-lo) e, se configurado, guarda uma cópia em sai.relatorio.diretorio
+    public void gerarRelatorio(OutputStream destino) {
+        gerarRelatorio(destino, (processados, total) -> { });
+    }
 
-            String nomeArquivo = "relatorio_" + LocalDate.now() + ".pdf";
-            File file = new File(pasta, nomeArquivo);
+    public void gerarRelatorio(OutputStream destino, Progresso progresso) {
 
-            PdfWriter writer = new PdfWriter(file.getAbsolutePath());
+        Timer.Sample inicio = Timer.start(registry);
+        String resultado = "erro";
+
+        try (ArquivoAtomicoOutputStream copia = abrirCopiaEmDisco();
+             OutputStream saida = new TeeOutputStream(destino, copia != null ? copia : OutputStream.nullOutputStream())) {
+
+            ContadorOutputStream contador = new ContadorOutputStream(saida);
+            PdfWriter writer = new PdfWriter(contador);
             PdfDocument pdf = new PdfDocument(writer);
             Document document = new Document(pdf);
 
@@ -62,24 +117,20 @@ public class RelatorioService {
             // RESUMO
             // ===============================
 
-            long concluidos = agendamentos.stream()
-                    .filter(a -> a.getStatus().name().equals("CONCLUIDO"))
-                    .count();
-
-            long cancelados = agendamentos.stream()
-                    .filter(a -> a.getStatus().name().equals("CANCELADO"))
-                    .count();
+            Map<StatusAgendamento, Long> resumo = new EnumMap<>(StatusAgendamento.class);
+            for (StatusAgendamento status : StatusAgendamento.values()) {
+                resumo.put(status, 0L);
+            }
+            repository.contarPorStatus().forEach(item -> resumo.put(item.getStatus(), item.getTotal()));
 
-            long aguardando = agendamentos.stream()
-                    .filter(a -> a.getStatus().name().equals("AGUARDANDO"))
-                    .count();
+            long total = resumo.values().stream().mapToLong(Long::longValue).sum();
 
             document.add(new Paragraph("Resumo do expediente").setBold());
 
-            document.add(new Paragraph("Total de atendimentos: " + agendamentos.size()));
-            document.add(new Paragraph("Concluídos: " + concluidos));
-            document.add(new Paragraph("Cancelados: " + cancelados));
-            document.add(new Paragraph("Aguardando: " + aguardando));
+            document.add(new Paragraph("Total de atendimentos: " + total));
+            document.add(new Paragraph("Concluídos: " + resumo.get(StatusAgendamento.CONCLUIDO)));
+            document.add(new Paragraph("Cancelados: " + resumo.get(StatusAgendamento.CANCELADO)));
+            document.add(new Paragraph("Aguardando: " + resumo.get(StatusAgendamento.AGUARDANDO)));
 
             document.add(new Paragraph("\n"));
 
@@ -87,7 +138,8 @@ public class RelatorioService {
             // TABELA
             // ===============================
 
-            Table table = new Table(UnitValue.createPercentArray(6)).useAllAvailableWidth();
+            // largeTable = true: as linhas já desenhadas são liberadas a cada flush()
+            Table table = new Table(UnitValue.createPercentArray(5), true).useAllAvailableWidth();
 
             table.addHeaderCell(header("Nome"));
             table.addHeaderCell(header("CPF"));
@@ -95,21 +147,40 @@ public class RelatorioService {
             table.addHeaderCell(header("Status"));
             table.addHeaderCell(header("Hora"));
 
-            for (Agendamento a : agendamentos) {
+            document.add(table);
 
-                table.addCell(cell(a.getNomeSolicitante()));
-                table.addCell(cell(a.getCpf()));
-                table.addCell(cell(a.getTipoServico().toString()));
-                table.addCell(cell(a.getStatus().toString()));
+            CursorAgendamentoDTO cursor = null;
+            List<AgendamentoResponseDTO> lote;
+            long processados = 0;
+            progresso.registrar(processados, total);
+            do {
+                lote = repository.consultarResumo(AgendamentoSpecifications.aposCursor(cursor), tamanhoLote);
+
+                for (AgendamentoResponseDTO a : lote) {
+
+                    table.addCell(cell(a.nomeSolicitante()));
+                    table.addCell(cell(a.cpf()));
+                    table.addCell(cell(a.tipoServico()));
+                    table.addCell(cell(a.status().toString()));
+
+                    if (a.dataHoraChegada() != null) {
+                        table.addCell(cell(a.dataHoraChegada().toLocalTime().toString()));
+                    } else {
+                        table.addCell(cell("-"));
+                    }
+                }
+
+                table.flush();
+                processados += lote.size();
+                progresso.registrar(processados, total);
 
-                if (a.getDataHoraChegada() != null) {
-                    table.addCell(cell(a.getDataHoraChegada().toLocalTime().toString()));
-                } else {
-                    table.addCell(cell("-"));
+                if (!lote.isEmpty()) {
+                    AgendamentoResponseDTO ultimo = lote.get(lote.size() - 1);
+                    cursor = new CursorAgendamentoDTO(ultimo.dataHoraChegada(), ultimo.id());
                 }
-            }
+            } while (lote.size() == tamanhoLote);
 
-            document.add(table);
+            table.complete();
 
             document.add(new Paragraph("\n"));
 
@@ -125,15 +196,38 @@ public class RelatorioService {
 
             document.add(rodape);
 
+            writer.setCloseStream(false);
             document.close();
+            if (copia != null) {
+                copia.concluir();
+            }
 
-            return file;
+            tamanhoBytes.record(contador.getTotal());
+            linhas.record(processados);
+            resultado = "sucesso";
 
         } catch (Exception e) {
             throw new RuntimeException("Erro ao gerar relatório", e);
+        } finally {
+            inicio.stop(Timer.builder("sai.relatorio.geracao")
+                    .description("Tempo de geração do PDF do expediente")
+                    .tag("resultado", resultado)
+                    .publishPercentileHistogram()
+                    .register(registry));
         }
     }
 
+    // Cópia escrita num temporário e renomeada só no fim: execuções simultâneas ou que falham no meio
+    // nunca deixam um relatorio_<data>.pdf truncado
+    private ArquivoAtomicoOutputStream abrirCopiaEmDisco() throws IOException {
+        if (!StringUtils.hasText(diretorioCopia)) {
+            return null;
+        }
+
+        Path pasta = Files.createDirectories(Path.of(diretorioCopia));
+        return new ArquivoAtomicoOutputStream(pasta.resolve(nomeArquivo()));
+    }
+
     private Cell header(String texto) {
 
         return new Cell()
@@ -148,4 +242,4 @@ public class RelatorioService {
                 .add(new Paragraph(texto))
                 .setTextAlignment(TextAlignment.CENTER);
     }
-}
\ No newline at end of file
+}
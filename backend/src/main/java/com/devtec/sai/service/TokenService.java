@@ -1,31 +1,63 @@
 package com.devtec.sai.service;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.devtec.sai.model.UserRole;
 import com.devtec.sai.model.Usuario;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.Date;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class TokenService {
 
-    @Value("${JWT_SECRET:JWT_SECRET}")
-    private String tokenKey;
+    private static final String EMISSOR = "SAI - Agendamentos";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_EPOCA = "epoca";
+    private static final String CLAIM_USO = "uso";
+    private static final String USO_EVENTOS = "eventos";
+
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final int capacidadeCache;
+    private final long validadeEventosSegundos;
+
+    // Tokens já verificados, pelo SHA-256 do token inteiro: a mesma requisição repetida
+    // (polling dos guichês) não refaz o HMAC nem o parse do JSON
+    private final Map<ByteBuffer, TokenVerificado> verificados = new ConcurrentHashMap<>();
+
+    public TokenService(@Value("${JWT_SECRET:JWT_SECRET}") String tokenKey,
+                        @Value("${sai.seguranca.token.cache-capacidade:10000}") int capacidadeCache,
+                        @Value("${sai.seguranca.token-eventos.validade-s:60}") long validadeEventosSegundos) {
+        this.algorithm = Algorithm.HMAC256(tokenKey);
+        this.verifier = JWT.require(algorithm)
+                .withIssuer(EMISSOR)
+                .build();
+        this.capacidadeCache = capacidadeCache;
+        this.validadeEventosSegundos = validadeEventosSegundos;
+    }
 
     public String gerarToken(Usuario usuario) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(tokenKey);
             return JWT.create()
-                    .withIssuer("SAI - Agendamentos")
+                    .withIssuer(EMISSOR)
                     .withSubject(usuario.getLogin())
+                    .withClaim(CLAIM_ROLE, usuario.getRole().name())
+                    .withClaim(CLAIM_EPOCA, usuario.getEpocaToken())
                     .withExpiresAt(dataExpiracao())
                     .sign(algorithm);
         }catch (JWTCreationException exception){
@@ -33,23 +65,89 @@ public class TokenService {
         }
     }
 
-    public String getSubject(String tokenJWT) {
+    // EventSource não envia cabeçalhos: o navegador abre /agendamentos/eventos com este token na query.
+    // Vale só para o stream (SecurityFilter), por pouco tempo e nunca além da sessão que o pediu;
+    // a época é a mesma, então revogar a sessão também o invalida
+    public String gerarTokenEventos(TokenVerificado sessao) {
+        Instant expiraEm = Instant.now().plusSeconds(validadeEventosSegundos);
         try {
-            Algorithm algorithm = Algorithm.HMAC256(tokenKey);
-            return JWT.require(algorithm)
-                    .withIssuer("SAI - Agendamentos")
-                    .build()
-                    .verify(tokenJWT)
-                    .getSubject();
-        } catch (JWTVerificationException exception) {
-            return "";
+            return JWT.create()
+                    .withIssuer(EMISSOR)
+                    .withSubject(sessao.login())
+                    .withClaim(CLAIM_ROLE, sessao.role().name())
+                    .withClaim(CLAIM_EPOCA, sessao.epoca())
+                    .withClaim(CLAIM_USO, USO_EVENTOS)
+                    .withExpiresAt(expiraEm.isBefore(sessao.expiraEm()) ? expiraEm : sessao.expiraEm())
+                    .sign(algorithm);
+        } catch (JWTCreationException exception) {
+            throw new RuntimeException("Erro ao gerar token JWT", exception);
+        }
+    }
+
+    public long getValidadeEventosSegundos() {
+        return validadeEventosSegundos;
+    }
+
+    // Vazio quando o token é inválido, expirou ou foi emitido sem as claims de perfil e época
+    public Optional<TokenVerificado> verificar(String tokenJWT) {
+        if (capacidadeCache <= 0) {
+            return decodificar(tokenJWT);
+        }
+
+        ByteBuffer chave = ByteBuffer.wrap(digest(tokenJWT));
+        Instant agora = Instant.now();
+
+        TokenVerificado verificado = verificados.get(chave);
+        if (verificado != null) {
+            if (verificado.expiraEm().isAfter(agora)) {
+                return Optional.of(verificado);
+            }
+            verificados.remove(chave, verificado);
+            return Optional.empty();
         }
 
+        Optional<TokenVerificado> decodificado = decodificar(tokenJWT);
+        decodificado.ifPresent(token -> guardar(chave, token, agora));
+        return decodificado;
+    }
+
+    private Optional<TokenVerificado> decodificar(String tokenJWT) {
+        try {
+            DecodedJWT decodificado = verifier.verify(tokenJWT);
+            String role = decodificado.getClaim(CLAIM_ROLE).asString();
+            Integer epoca = decodificado.getClaim(CLAIM_EPOCA).asInt();
+            Instant expiraEm = decodificado.getExpiresAtAsInstant();
+            if (role == null || epoca == null || expiraEm == null) {
+                return Optional.empty();
+            }
+            boolean somenteEventos = USO_EVENTOS.equals(decodificado.getClaim(CLAIM_USO).asString());
+            return Optional.of(new TokenVerificado(decodificado.getSubject(), UserRole.valueOf(role), epoca, expiraEm, somenteEventos));
+        } catch (JWTVerificationException | IllegalArgumentException exception) {
+            return Optional.empty();
+        }
+    }
+
+    private void guardar(ByteBuffer chave, TokenVerificado verificado, Instant agora) {
+        if (verificados.size() >= capacidadeCache) {
+            verificados.values().removeIf(item -> !item.expiraEm().isAfter(agora));
+            if (verificados.size() >= capacidadeCache) {
+                verificados.clear();
+            }
+        }
+        verificados.put(chave, verificado);
+    }
+
+    private static byte[] digest(String tokenJWT) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(tokenJWT.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private Instant dataExpiracao() {
         return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-03:00"));
     }
-}
-
 
+    public record TokenVerificado(String login, UserRole role, int epoca, Instant expiraEm, boolean somenteEventos) {}
+}
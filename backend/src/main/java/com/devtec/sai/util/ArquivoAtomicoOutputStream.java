@@ -0,0 +1,55 @@
+package com.devtec.sai.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Grava num temporário da mesma pasta e só troca o arquivo de destino em concluir(), com rename atômico.
+// Fechado sem concluir (falha no meio da escrita), o temporário é apagado e o destino anterior fica intacto.
+public class ArquivoAtomicoOutputStream extends OutputStream {
+
+    private final Path destino;
+    private final Path temporario;
+    private final OutputStream saida;
+    private boolean concluido;
+
+    public ArquivoAtomicoOutputStream(Path destino) throws IOException {
+        this.destino = destino;
+        this.temporario = Files.createTempFile(destino.toAbsolutePath().getParent(), destino.getFileName() + ".", ".tmp");
+        this.saida = new BufferedOutputStream(Files.newOutputStream(temporario));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        saida.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        saida.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        saida.flush();
+    }
+
+    public void concluir() throws IOException {
+        saida.close();
+        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        concluido = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (concluido) return;
+        try {
+            saida.close();
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.devtec.sai.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Conta os bytes que passam para o destino
+public class ContadorOutputStream extends FilterOutputStream {
+
+    private long total;
+
+    public ContadorOutputStream(OutputStream destino) {
+        super(destino);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        total++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        total += len;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
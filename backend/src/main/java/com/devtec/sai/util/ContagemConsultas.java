@@ -0,0 +1,74 @@
+package com.devtec.sai.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Idas ao banco e tempo gasto nelas, acumulados por thread entre iniciar() e encerrar().
+// Fora de um escopo aberto (jobs em segundo plano, threads do executor) as consultas não são contadas.
+// Também conta as execuções de cada SQL normalizado (literais e listas de IN trocados por ?): o mesmo
+// statement repetido muitas vezes numa requisição é o sinal de um N+1.
+public final class ContagemConsultas {
+
+    private static final ThreadLocal<ContagemConsultas> ATUAL = new ThreadLocal<>();
+
+    private static final Pattern TEXTO = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERO = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern LISTA = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private int consultas;
+    private long tempoNanos;
+    private final Map<String, Integer> porSql = new HashMap<>();
+
+    private ContagemConsultas() {
+    }
+
+    public static ContagemConsultas iniciar() {
+        ContagemConsultas contagem = new ContagemConsultas();
+        ATUAL.set(contagem);
+        return contagem;
+    }
+
+    public static void encerrar() {
+        ATUAL.remove();
+    }
+
+    public static void registrar(String sql, long tempoNanos) {
+        ContagemConsultas contagem = ATUAL.get();
+        if (contagem != null) {
+            contagem.consultas++;
+            contagem.tempoNanos += tempoNanos;
+            if (sql != null) {
+                contagem.porSql.merge(normalizar(sql), 1, Integer::sum);
+            }
+        }
+    }
+
+    // Mesmo formato para a mesma consulta com parâmetros diferentes
+    public static String normalizar(String sql) {
+        String normalizado = TEXTO.matcher(sql).replaceAll("?");
+        normalizado = NUMERO.matcher(normalizado).replaceAll("?");
+        normalizado = LISTA.matcher(normalizado).replaceAll("(?)");
+        return ESPACOS.matcher(normalizado).replaceAll(" ").trim();
+    }
+
+    public int getConsultas() {
+        return consultas;
+    }
+
+    public long getTempoNanos() {
+        return tempoNanos;
+    }
+
+    // SQLs executados mais de 'limite' vezes, do mais repetido para o menos
+    public Map<String, Integer> repetidasAcimaDe(int limite) {
+        Map<String, Integer> repetidas = new LinkedHashMap<>();
+        porSql.entrySet().stream()
+                .filter(entrada -> entrada.getValue() > limite)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entrada -> repetidas.put(entrada.getKey(), entrada.getValue()));
+        return repetidas;
+    }
+}
@@ -0,0 +1,43 @@
+package com.devtec.sai.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Escreve em dois destinos. O close() fecha só a cópia: o destino principal (ex.: a resposta HTTP) é de quem o abriu.
+public class TeeOutputStream extends OutputStream {
+
+    private final OutputStream principal;
+    private final OutputStream copia;
+
+    public TeeOutputStream(OutputStream principal, OutputStream copia) {
+        this.principal = principal;
+        this.copia = copia;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        principal.write(b);
+        copia.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        principal.write(b, off, len);
+        copia.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        principal.flush();
+        copia.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            principal.flush();
+        } finally {
+            copia.close();
+        }
+    }
+}
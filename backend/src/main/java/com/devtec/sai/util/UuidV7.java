@@ -0,0 +1,41 @@
+package com.devtec.sai.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+// UUID versão 7 (RFC 9562): 48 bits de milissegundos Unix, 12 bits de contador e 62 bits aleatórios.
+// O contador garante ordem crescente dentro da JVM mesmo com vários ids no mesmo milissegundo
+// ou com o relógio voltando; entre instâncias a ordem é a do relógio de cada uma.
+public final class UuidV7 {
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+    private static final int CONTADOR_MAXIMO = 0xFFF;
+
+    private static long ultimoMilissegundo;
+    private static int contador;
+
+    private UuidV7() {
+    }
+
+    public static UUID gerar() {
+        long milissegundo;
+        int sequencia;
+        synchronized (UuidV7.class) {
+            long agora = System.currentTimeMillis();
+            if (agora > ultimoMilissegundo) {
+                ultimoMilissegundo = agora;
+                // Começa na metade de baixo para sobrar espaço para incrementar no mesmo milissegundo
+                contador = ALEATORIO.nextInt(CONTADOR_MAXIMO / 2);
+            } else if (++contador > CONTADOR_MAXIMO) {
+                ultimoMilissegundo++;
+                contador = 0;
+            }
+            milissegundo = ultimoMilissegundo;
+            sequencia = contador;
+        }
+
+        long maisSignificativos = (milissegundo << 16) | 0x7000L | sequencia;
+        long menosSignificativos = (ALEATORIO.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(maisSignificativos, menosSignificativos);
+    }
+}
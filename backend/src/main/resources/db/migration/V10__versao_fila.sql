@@ -0,0 +1,9 @@
+-- Versão da fila compartilhada por todas as instâncias (ETag, ?desde= e ids SSE).
+-- Cada transação que altera a fila soma aqui os seus eventos no mesmo comando do NOTIFY: o lock da linha
+-- vai até o commit, então as versões saem sem buracos e na ordem dos commits (e um rollback devolve a faixa).
+CREATE TABLE tb_versao_fila(
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    versao BIGINT NOT NULL
+);
+
+INSERT INTO tb_versao_fila (id, versao) VALUES (1, 0);
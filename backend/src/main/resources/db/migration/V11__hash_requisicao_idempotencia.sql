@@ -0,0 +1,3 @@
+-- Repetição com a mesma Idempotency-Key e corpo diferente é erro do cliente, não a mesma requisição:
+-- o hash do corpo fica com a chave para comparar (nulo nas chaves gravadas antes desta coluna)
+ALTER TABLE tb_chaves_idempotencia ADD COLUMN hash_requisicao VARCHAR(64);
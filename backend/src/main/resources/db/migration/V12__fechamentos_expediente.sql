@@ -0,0 +1,19 @@
+-- Jobs de fechamento de expediente, visíveis para todas as instâncias. O índice único parcial garante um
+-- fechamento por dia (um que falhou libera o dia para nova tentativa) e o PDF pronto fica guardado no banco,
+-- para qualquer instância entregar o relatório.
+CREATE TABLE tb_fechamentos_expediente(
+    id UUID PRIMARY KEY,
+    dia DATE NOT NULL,
+    situacao VARCHAR(20) NOT NULL,
+    progresso INTEGER NOT NULL DEFAULT 0,
+    processados BIGINT NOT NULL DEFAULT 0,
+    total BIGINT NOT NULL DEFAULT 0,
+    erro TEXT,
+    relatorio BYTEA,
+    criado_em TIMESTAMP NOT NULL DEFAULT now(),
+    atualizado_em TIMESTAMP NOT NULL DEFAULT now(),
+    concluido_em TIMESTAMP
+);
+
+CREATE UNIQUE INDEX uk_fechamentos_expediente_dia ON tb_fechamentos_expediente (dia) WHERE situacao <> 'FALHOU';
+CREATE INDEX idx_fechamentos_expediente_concluido_em ON tb_fechamentos_expediente (concluido_em);
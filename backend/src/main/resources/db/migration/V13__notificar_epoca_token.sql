@@ -0,0 +1,13 @@
+-- Perfil ou senha alterados direto no banco (ajuste manual) também derrubam os tokens nas instâncias em execução:
+-- o mesmo gatilho que incrementa a época avisa no barramento, que o Postgres só entrega após o commit.
+-- Origem própria ("banco") e sem sequência contínua: uma mensagem perdida fica coberta pela expiração do cache.
+CREATE OR REPLACE FUNCTION sai_incrementar_epoca_token() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.epoca_token := OLD.epoca_token + 1;
+    PERFORM pg_notify('sai_eventos', json_build_object(
+            'origem', 'banco',
+            'sequencia', 0,
+            'eventos', json_build_array(json_build_object('tipo', 'USUARIO', 'login', NEW.login)))::text);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,9 @@
+-- Versões da fila numa SEQUENCE: o nextval não participa da transação nem trava nada, então as transações
+-- que alteram a fila deixam de se enfileirar na linha de tb_versao_fila até o commit.
+-- Em troca as versões podem ter buracos (rollback) e chegar fora da ordem dos commits: o FilaEventosService
+-- espera as anteriores por um tempo e depois segue sem elas.
+CREATE SEQUENCE sai_versao_fila_seq;
+
+SELECT setval('sai_versao_fila_seq', versao + 1, false) FROM tb_versao_fila WHERE id = 1;
+
+DROP TABLE tb_versao_fila;
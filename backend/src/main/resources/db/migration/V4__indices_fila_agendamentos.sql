@@ -0,0 +1,6 @@
+-- Índices da listagem paginada por cursor (data_hora_chegada, id) com filtros de status e tipo de serviço
+CREATE INDEX idx_agendamentos_chegada ON tb_agendamentos (data_hora_chegada, id);
+
+CREATE INDEX idx_agendamentos_status_chegada ON tb_agendamentos (status, data_hora_chegada, id);
+
+CREATE INDEX idx_agendamentos_tipo_chegada ON tb_agendamentos (tipo_servico, data_hora_chegada, id);
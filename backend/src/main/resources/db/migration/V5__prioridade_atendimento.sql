@@ -0,0 +1,8 @@
+ALTER TABLE tb_agendamentos ADD COLUMN prioridade VARCHAR(20) NOT NULL DEFAULT 'NORMAL';
+
+-- Próximo a chamar em cada classe: índices parciais só com quem está aguardando
+CREATE INDEX idx_agendamentos_aguardando_preferencial ON tb_agendamentos (data_hora_chegada, id)
+    WHERE status = 'AGUARDANDO' AND prioridade <> 'NORMAL';
+
+CREATE INDEX idx_agendamentos_aguardando_regular ON tb_agendamentos (data_hora_chegada, id)
+    WHERE status = 'AGUARDANDO' AND prioridade = 'NORMAL';
@@ -0,0 +1,130 @@
+-- tb_agendamentos passa a ser particionada por dia em data_hora_chegada.
+-- Fechar o expediente desanexa as partições (operação de catálogo, sem DELETE linha a linha)
+-- e as pendura em tb_agendamentos_historico, que continua consultável.
+
+DROP INDEX idx_agendamentos_chegada;
+DROP INDEX idx_agendamentos_status_chegada;
+DROP INDEX idx_agendamentos_tipo_chegada;
+DROP INDEX idx_agendamentos_aguardando_preferencial;
+DROP INDEX idx_agendamentos_aguardando_regular;
+ALTER TABLE tb_agendamentos DROP CONSTRAINT tb_agendamentos_pkey;
+ALTER TABLE tb_agendamentos RENAME TO tb_agendamentos_legado;
+
+-- A chave de partição precisa fazer parte da chave primária
+CREATE TABLE tb_agendamentos(
+    id UUID NOT NULL,
+    nome_solicitante VARCHAR(255) NOT NULL,
+    cpf VARCHAR(11) NOT NULL,
+    rg VARCHAR(20),
+    tipo_servico VARCHAR(100) NOT NULL,
+    data_hora_chegada TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    prioridade VARCHAR(20) NOT NULL DEFAULT 'NORMAL',
+    PRIMARY KEY (id, data_hora_chegada)
+) PARTITION BY RANGE (data_hora_chegada);
+
+-- Recebe o que chegar num dia sem partição criada
+CREATE TABLE tb_agendamentos_padrao PARTITION OF tb_agendamentos DEFAULT;
+
+CREATE INDEX idx_agendamentos_chegada ON tb_agendamentos (data_hora_chegada, id);
+
+CREATE INDEX idx_agendamentos_status_chegada ON tb_agendamentos (status, data_hora_chegada, id);
+
+CREATE INDEX idx_agendamentos_tipo_chegada ON tb_agendamentos (tipo_servico, data_hora_chegada, id);
+
+CREATE INDEX idx_agendamentos_aguardando_preferencial ON tb_agendamentos (data_hora_chegada, id)
+    WHERE status = 'AGUARDANDO' AND prioridade <> 'NORMAL';
+
+CREATE INDEX idx_agendamentos_aguardando_regular ON tb_agendamentos (data_hora_chegada, id)
+    WHERE status = 'AGUARDANDO' AND prioridade = 'NORMAL';
+
+-- Pai (por herança) das partições arquivadas: SELECT nele lê todos os expedientes fechados
+CREATE TABLE tb_agendamentos_historico(
+    id UUID NOT NULL,
+    nome_solicitante VARCHAR(255) NOT NULL,
+    cpf VARCHAR(11) NOT NULL,
+    rg VARCHAR(20),
+    tipo_servico VARCHAR(100) NOT NULL,
+    data_hora_chegada TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    prioridade VARCHAR(20) NOT NULL DEFAULT 'NORMAL'
+);
+
+-- Cria a partição do dia; linhas desse dia que tenham caído na partição padrão são movidas para ela
+CREATE OR REPLACE FUNCTION sai_criar_particao_agendamentos(dia DATE) RETURNS VOID AS $$
+DECLARE
+    nome TEXT := 'tb_agendamentos_' || to_char(dia, 'YYYYMMDD');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('sai_particoes_agendamentos'));
+
+    IF to_regclass(nome) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE tb_agendamentos INCLUDING DEFAULTS)', nome);
+    EXECUTE format(
+        'WITH movidas AS (DELETE FROM tb_agendamentos_padrao WHERE data_hora_chegada >= %L AND data_hora_chegada < %L RETURNING *) '
+        'INSERT INTO %I SELECT * FROM movidas',
+        dia, dia + 1, nome);
+    EXECUTE format('ALTER TABLE tb_agendamentos ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+        nome, dia, dia + 1);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION sai_preparar_particoes_agendamentos(dia DATE) RETURNS VOID AS $$
+BEGIN
+    PERFORM sai_criar_particao_agendamentos(dia);
+    PERFORM sai_criar_particao_agendamentos(dia + 1);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Fecha o expediente: toda partição com linhas é desanexada, renomeada e passa a herdar de
+-- tb_agendamentos_historico. Só mexe em catálogo, então o custo não depende da quantidade de linhas.
+CREATE OR REPLACE FUNCTION sai_arquivar_expediente(dia DATE) RETURNS INTEGER AS $$
+DECLARE
+    particao RECORD;
+    possui_linhas BOOLEAN;
+    arquivo TEXT;
+    sufixo TEXT := to_char(clock_timestamp(), 'YYYYMMDD_HH24MISS_US');
+    total INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('sai_particoes_agendamentos'));
+    LOCK TABLE tb_agendamentos IN ACCESS EXCLUSIVE MODE;
+
+    FOR particao IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'tb_agendamentos'::regclass
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I)', particao.relname) INTO possui_linhas;
+        CONTINUE WHEN NOT possui_linhas;
+
+        total := total + 1;
+        arquivo := 'tb_agendamentos_arq_' || sufixo || '_' || total;
+
+        EXECUTE format('ALTER TABLE tb_agendamentos DETACH PARTITION %I', particao.relname);
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', particao.relname, arquivo);
+        EXECUTE format('ALTER TABLE %I INHERIT tb_agendamentos_historico', arquivo);
+    END LOOP;
+
+    -- Partição padrão arquivada precisa ser recriada
+    IF to_regclass('tb_agendamentos_padrao') IS NULL THEN
+        CREATE TABLE tb_agendamentos_padrao PARTITION OF tb_agendamentos DEFAULT;
+    END IF;
+
+    PERFORM sai_preparar_particoes_agendamentos(dia);
+    RETURN total;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Migra o que já existia: uma partição para cada dia presente na tabela antiga
+SELECT sai_criar_particao_agendamentos(dia)
+FROM (SELECT DISTINCT CAST(data_hora_chegada AS DATE) AS dia FROM tb_agendamentos_legado) dias;
+
+INSERT INTO tb_agendamentos (id, nome_solicitante, cpf, rg, tipo_servico, data_hora_chegada, status, prioridade)
+SELECT id, nome_solicitante, cpf, rg, tipo_servico, data_hora_chegada, status, prioridade
+FROM tb_agendamentos_legado;
+
+DROP TABLE tb_agendamentos_legado;
@@ -0,0 +1,2 @@
+-- Incrementada para revogar todos os tokens já emitidos para o usuário
+ALTER TABLE tb_usuarios ADD COLUMN epoca_token INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,10 @@
+-- Idempotency-Key do POST /agendamentos/agendar: a resposta original fica guardada para repetições,
+-- inclusive as que caírem em outra instância ou chegarem depois do expediente arquivado
+CREATE TABLE tb_chaves_idempotencia(
+    chave VARCHAR(100) PRIMARY KEY,
+    agendamento_id UUID NOT NULL,
+    resposta TEXT NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_chaves_idempotencia_criado_em ON tb_chaves_idempotencia (criado_em);
@@ -0,0 +1,14 @@
+-- O token leva o perfil do usuário: trocar perfil ou senha precisa invalidar os tokens já emitidos.
+-- Feito no banco para valer em qualquer caminho de UPDATE (JPA, revogação ou ajuste manual).
+CREATE OR REPLACE FUNCTION sai_incrementar_epoca_token() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.epoca_token := OLD.epoca_token + 1;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_usuarios_epoca_token
+    BEFORE UPDATE OF role, senha ON tb_usuarios
+    FOR EACH ROW
+    WHEN (OLD.role IS DISTINCT FROM NEW.role OR OLD.senha IS DISTINCT FROM NEW.senha)
+    EXECUTE FUNCTION sai_incrementar_epoca_token();
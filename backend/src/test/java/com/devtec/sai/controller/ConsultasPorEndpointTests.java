@@ -0,0 +1,201 @@
+package com.devtec.sai.controller;
+
+import com.devtec.sai.model.UserRole;
+import com.devtec.sai.model.Usuario;
+import com.devtec.sai.repository.AgendamentosRepository;
+import com.devtec.sai.repository.UsuarioRepository;
+import com.devtec.sai.service.IndiceFilaService;
+import com.devtec.sai.service.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static com.devtec.sai.util.LimiteConsultas.noMaximo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Teto de idas ao banco por endpoint: uma regressão N+1 (ou uma consulta a mais por requisição) quebra o teste.
+// Toda escrita em agendamento inclui o NOTIFY do barramento de eventos entre instâncias.
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConsultasPorEndpointTests {
+
+    private static final String LOGIN = "guiche-consultas";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AgendamentosRepository agendamentosRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private IndiceFilaService indiceFila;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private String token;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        agendamentosRepository.deleteAllInBatch();
+        indiceFila.limpar();
+
+        Usuario usuario = (Usuario) usuarioRepository.findByLogin(LOGIN);
+        if (usuario == null) {
+            usuario = usuarioRepository.save(new Usuario(LOGIN, "-", UserRole.USER));
+        }
+        token = "Bearer " + tokenService.gerarToken(usuario);
+
+        for (int i = 0; i < 20; i++) {
+            agendar();
+        }
+    }
+
+    @Test
+    void agendar() throws Exception {
+        mockMvc.perform(post("/agendamentos/agendar")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nomeSolicitante\":\"Cidadão\",\"cpf\":\"52998224725\",\"tipoServico\":\"RG\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(noMaximo(3));
+    }
+
+    // A repetição com a mesma Idempotency-Key é respondida da memória, sem ir ao banco
+    @Test
+    void agendarRepetidoComChaveDeIdempotencia() throws Exception {
+        String chave = UUID.randomUUID().toString();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/agendamentos/agendar")
+                            .header("Authorization", token)
+                            .header("Idempotency-Key", chave)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"nomeSolicitante\":\"Cidadão\",\"cpf\":\"52998224725\",\"tipoServico\":\"RG\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(noMaximo(i == 0 ? 4 : 0));
+        }
+    }
+
+    // 120 itens válidos em lotes JDBC de 50: três INSERTs, não 120
+    @Test
+    void agendarLote() throws Exception {
+        StringBuilder itens = new StringBuilder();
+        for (int i = 0; i < 120; i++) {
+            itens.append("{\"nomeSolicitante\":\"Cidadão ").append(i).append("\",\"cpf\":\"52998224725\",\"tipoServico\":\"RG\"},");
+        }
+        itens.append("{\"nomeSolicitante\":\"Cidadão\",\"cpf\":\"123\",\"tipoServico\":\"RG\"}");
+
+        mockMvc.perform(post("/agendamentos/agendar/lote")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"agendamentos\":[" + itens + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.criados").value(120))
+                .andExpect(jsonPath("$.rejeitados").value(1))
+                .andExpect(jsonPath("$.itens[120].erros[0].campo").value("cpf"))
+                .andExpect(noMaximo(4));
+    }
+
+    @Test
+    void consultarAgendamentos() throws Exception {
+        mockMvc.perform(get("/agendamentos/consultar_agendamentos?limite=50").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(noMaximo(1));
+        mockMvc.perform(get("/agendamentos/consultar_agendamentos?status=AGUARDANDO&tipoServico=RG").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(noMaximo(1));
+    }
+
+    // Cursor adulterado é erro do cliente: 400 antes de qualquer consulta
+    @Test
+    void consultarComCursorInvalido() throws Exception {
+        mockMvc.perform(get("/agendamentos/consultar_agendamentos?cursor=nao-e-um-cursor").header("Authorization", token))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cursor de paginação inválido"))
+                .andExpect(noMaximo(0));
+    }
+
+    // Fila sem mudanças: If-None-Match com a versão atual responde 304 sem ir ao banco
+    @Test
+    void consultarAgendamentosSemMudancas() throws Exception {
+        String url = "/agendamentos/consultar_agendamentos?limite=50";
+        String etag = mockMvc.perform(get(url).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(url).header("Authorization", token).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(noMaximo(0));
+
+        agendar();
+        mockMvc.perform(get(url).header("Authorization", token).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(21));
+    }
+
+    // ?desde devolve só o que mudou depois da versão, direto do histórico de eventos
+    @Test
+    void consultarAlteracoesDesde() throws Exception {
+        String versao = mockMvc.perform(get("/agendamentos/consultar_agendamentos").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("X-Versao-Fila");
+
+        String corpo = mockMvc.perform(post("/agendamentos/chamar-proximo").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(corpo).get("id").asText();
+
+        mockMvc.perform(get("/agendamentos/consultar_agendamentos?desde=" + versao).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Versao-Fila"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(id))
+                .andExpect(jsonPath("$[0].status").value("EM_ATENDIMENTO"))
+                .andExpect(noMaximo(0));
+
+        // Versão que esta instância ainda não alcançou
+        mockMvc.perform(get("/agendamentos/consultar_agendamentos?desde=" + (Long.parseLong(versao) + 1000)).header("Authorization", token))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    void chamarProximoEAtualizarStatus() throws Exception {
+        String corpo = mockMvc.perform(post("/agendamentos/chamar-proximo").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(noMaximo(3))
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(corpo).get("id").asText();
+
+        mockMvc.perform(post("/agendamentos/" + id + "/status")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"CONCLUIDO\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(noMaximo(2));
+    }
+
+    @Test
+    void contagem() throws Exception {
+        mockMvc.perform(get("/agendamentos/contagem").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(noMaximo(1));
+    }
+}
@@ -0,0 +1,115 @@
+package com.devtec.sai.controller;
+
+import com.devtec.sai.model.UserRole;
+import com.devtec.sai.model.Usuario;
+import com.devtec.sai.repository.UsuarioRepository;
+import com.devtec.sai.service.BarramentoEventosService;
+import com.devtec.sai.service.EpocaTokenService;
+import com.devtec.sai.service.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// O perfil vai no token: trocar perfil ou senha tem que derrubar os tokens emitidos antes
+@SpringBootTest
+@AutoConfigureMockMvc
+class EpocaTokenTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private EpocaTokenService epocaTokenService;
+
+    @Autowired
+    private BarramentoEventosService barramento;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void tokenAntigoDeUsuarioRebaixadoRecebe401() throws Exception {
+        verificarTokenAntigoDepoisDe(usuario -> usuario.alterarRole(UserRole.USER));
+    }
+
+    @Test
+    void tokenAntigoDepoisDaTrocaDeSenhaRecebe401() throws Exception {
+        verificarTokenAntigoDepoisDe(usuario -> usuario.alterarSenha("outro-hash"));
+    }
+
+    // A revogação soma direto na coluna, que a entidade não sobrescreve
+    @Test
+    void tokenAntigoDepoisDaRevogacaoRecebe401() throws Exception {
+        verificarTokenAntigoDepoisDe(usuario -> epocaTokenService.revogar(usuario.getLogin()));
+    }
+
+    // UPDATE fora da aplicação: o gatilho da V13 avisa pelo barramento e as instâncias descartam a época
+    @Test
+    void ajusteManualNoBancoDerrubaTokens() throws Exception {
+        String login = "epoca-" + UUID.randomUUID();
+        Usuario usuario = usuarioRepository.save(new Usuario(login, "-", UserRole.ADMIN));
+        String token = "Bearer " + tokenService.gerarToken(usuario);
+        mockMvc.perform(get("/agendamentos/contagem").header("Authorization", token))
+                .andExpect(status().isOk());
+
+        jdbcTemplate.update("UPDATE tb_usuarios SET role = 'USER' WHERE login = ?", login);
+
+        long limite = System.currentTimeMillis() + 5_000;
+        int status;
+        do {
+            Thread.sleep(50);
+            status = mockMvc.perform(get("/agendamentos/contagem").header("Authorization", token))
+                    .andReturn().getResponse().getStatus();
+        } while (status != 401 && System.currentTimeMillis() < limite);
+        assertEquals(401, status);
+    }
+
+    // Logins demais não crescem o cache além da capacidade
+    @Test
+    void cacheDeEpocasELimitado() {
+        EpocaTokenService limitado = new EpocaTokenService(usuarioRepository, barramento, new SimpleMeterRegistry(), 2, 60_000);
+        for (int i = 0; i < 5; i++) {
+            limitado.valida("inexistente-" + i, 0);
+        }
+        assertEquals(2, limitado.tamanho());
+    }
+
+    private void verificarTokenAntigoDepoisDe(Consumer<Usuario> alteracao) throws Exception {
+        String login = "epoca-" + UUID.randomUUID();
+        Usuario usuario = usuarioRepository.save(new Usuario(login, "-", UserRole.ADMIN));
+        String tokenAntigo = "Bearer " + tokenService.gerarToken(usuario);
+
+        // Primeira requisição deixa a época do login em cache
+        mockMvc.perform(get("/agendamentos/contagem").header("Authorization", tokenAntigo))
+                .andExpect(status().isOk());
+
+        Usuario alterado = (Usuario) usuarioRepository.findByLogin(login);
+        alteracao.accept(alterado);
+        usuarioRepository.save(alterado);
+
+        mockMvc.perform(get("/agendamentos/contagem").header("Authorization", tokenAntigo))
+                .andExpect(status().isUnauthorized());
+
+        Usuario relido = (Usuario) usuarioRepository.findByLogin(login);
+        assertEquals(1, relido.getEpocaToken());
+        mockMvc.perform(get("/agendamentos/contagem").header("Authorization", "Bearer " + tokenService.gerarToken(relido)))
+                .andExpect(status().isOk());
+    }
+}
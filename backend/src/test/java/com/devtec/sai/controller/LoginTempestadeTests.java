@@ -0,0 +1,146 @@
+package com.devtec.sai.controller;
+
+import com.devtec.sai.model.UserRole;
+import com.devtec.sai.model.Usuario;
+import com.devtec.sai.service.AutenticacaoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Capacidade do pool de autenticação: com uma thread e uma vaga na fila, o terceiro login simultâneo é recusado
+// na hora. A latência das consultas durante uma tempestade de logins é medida pelo LoginTempestadeCarga (perfil carga).
+@SpringBootTest(properties = {
+        "sai.autenticacao.threads=1",
+        "sai.autenticacao.fila=1",
+        "sai.autenticacao.retry-after-s=2",
+        "sai.autenticacao.falhas-por-ip=8",
+        "sai.autenticacao.capacidade-falhas=20"
+})
+@AutoConfigureMockMvc
+class LoginTempestadeTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // Substitui o BCrypt: o teste decide quando cada autenticação termina
+    @MockitoBean
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private AutenticacaoService autenticacaoService;
+
+    @Test
+    void loginsAlemDaCapacidadeRecebem503ComRetryAfter() throws Exception {
+        CountDownLatch emAndamento = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(authenticationManager.authenticate(any())).thenAnswer(invocacao -> {
+            emAndamento.countDown();
+            liberar.await();
+            return autenticado(invocacao.getArgument(0));
+        });
+
+        String login = "tempestade-" + UUID.randomUUID();
+        MvcResult primeiro = login(login, "senha", "127.0.0.1").andExpect(request().asyncStarted()).andReturn();
+        assertTrue(emAndamento.await(10, TimeUnit.SECONDS));
+        MvcResult naFila = login(login, "senha", "127.0.0.1").andExpect(request().asyncStarted()).andReturn();
+
+        login(login, "senha", "127.0.0.1")
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+
+        liberar.countDown();
+        for (MvcResult aceito : new MvcResult[]{primeiro, naFila}) {
+            mockMvc.perform(asyncDispatch(aceito))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.token").isNotEmpty());
+        }
+    }
+
+    // O bloqueio vale para o IP que errou: o dono da conta continua entrando de outro
+    @Test
+    void falhasSeguidasBloqueiamOLoginNoMesmoIp() throws Exception {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Senha errada"));
+
+        String login = "bloqueio-" + UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            falhar(login, "10.0.1.1");
+        }
+
+        login(login, "errada", "10.0.1.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+        falhar(login, "10.0.1.2");
+    }
+
+    @Test
+    void falhasEmVariosLoginsBloqueiamOIp() throws Exception {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Senha errada"));
+
+        for (int i = 0; i < 8; i++) {
+            falhar("varredura-" + UUID.randomUUID(), "10.0.2.1");
+        }
+
+        login("varredura-" + UUID.randomUUID(), "errada", "10.0.2.1")
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void falhasGuardadasSaoLimitadas() throws Exception {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Senha errada"));
+
+        for (int i = 0; i < 30; i++) {
+            falhar("aleatorio-" + UUID.randomUUID(), "10.0.3." + i);
+        }
+
+        assertTrue(autenticacaoService.falhasRegistradas() <= 40);
+    }
+
+    private void falhar(String login, String ip) throws Exception {
+        MvcResult falha = login(login, "errada", ip).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(falha)).andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions login(String login, String senha, String ip) throws Exception {
+        return mockMvc.perform(post("/auth/login")
+                .with(requisicao -> {
+                    requisicao.setRemoteAddr(ip);
+                    return requisicao;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"login\":\"" + login + "\",\"senha\":\"" + senha + "\"}"));
+    }
+
+    private ResultActions login(String login, String senha) throws Exception {
+        return mockMvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"login\":\"" + login + "\",\"senha\":\"" + senha + "\"}"));
+    }
+
+    private static UsernamePasswordAuthenticationToken autenticado(UsernamePasswordAuthenticationToken credenciais) {
+        Usuario usuario = new Usuario((String) credenciais.getPrincipal(), null, UserRole.USER);
+        return new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
+    }
+}
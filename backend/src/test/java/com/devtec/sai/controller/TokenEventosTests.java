@@ -0,0 +1,71 @@
+package com.devtec.sai.controller;
+
+import com.devtec.sai.model.UserRole;
+import com.devtec.sai.model.Usuario;
+import com.devtec.sai.repository.UsuarioRepository;
+import com.devtec.sai.service.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// EventSource não envia Authorization: o stream aceita um token curto na query, que não abre as outras rotas
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenEventosTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String tokenSessao;
+
+    @BeforeEach
+    void criarUsuario() {
+        Usuario usuario = usuarioRepository.save(new Usuario("eventos-" + UUID.randomUUID(), "-", UserRole.USER));
+        tokenSessao = tokenService.gerarToken(usuario);
+    }
+
+    @Test
+    void tokenDeEventosAbreSoOStream() throws Exception {
+        String resposta = mockMvc.perform(post("/agendamentos/eventos/token").header("Authorization", "Bearer " + tokenSessao))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String tokenEventos = objectMapper.readTree(resposta).get("token").asText();
+
+        mockMvc.perform(get("/agendamentos/eventos").param("token", tokenEventos))
+                .andExpect(request().asyncStarted());
+
+        mockMvc.perform(get("/agendamentos/contagem").header("Authorization", "Bearer " + tokenEventos))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/agendamentos/contagem").param("token", tokenEventos))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/agendamentos/eventos/token").header("Authorization", "Bearer " + tokenEventos))
+                .andExpect(status().isUnauthorized());
+    }
+
+    // O token de sessão na URL acabaria em logs de acesso e histórico: só vale no cabeçalho
+    @Test
+    void tokenDeSessaoNaQueryNaoAbreOStream() throws Exception {
+        mockMvc.perform(get("/agendamentos/eventos").param("token", tokenSessao))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,165 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.SaiApplication;
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.RegisterDTO;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.model.StatusAgendamento;
+import com.devtec.sai.model.TipoEventoFila;
+import com.devtec.sai.model.UserRole;
+import com.devtec.sai.repository.VersaoFilaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Duas instâncias da aplicação no mesmo Postgres: o que uma grava aparece no estado em memória da outra
+class BarramentoEventosTests {
+
+    private static final Duration PRAZO = Duration.ofSeconds(10);
+
+    private static ConfigurableApplicationContext instanciaA;
+    private static ConfigurableApplicationContext instanciaB;
+
+    @BeforeAll
+    static void subirInstancias() {
+        instanciaA = subir();
+        instanciaB = subir();
+    }
+
+    @AfterAll
+    static void derrubarInstancias() {
+        if (instanciaA != null) instanciaA.close();
+        if (instanciaB != null) instanciaB.close();
+    }
+
+    @Test
+    void agendamentoGravadoEmUmaInstanciaChegaAoIndiceDaOutra() {
+        AgendamentoService servicoA = instanciaA.getBean(AgendamentoService.class);
+        IndiceFilaService indiceB = instanciaB.getBean(IndiceFilaService.class);
+        FilaEventosService eventosA = instanciaA.getBean(FilaEventosService.class);
+        FilaEventosService eventosB = instanciaB.getBean(FilaEventosService.class);
+        // A recarga da subida de cada instância usa uma versão só dela, que a outra pula como lacuna
+        agendar(servicoA);
+        aguardar(() -> eventosA.versao().equals(eventosB.versao()));
+        String versaoAntes = eventosA.versao();
+
+        UUID id = agendar(servicoA);
+        aguardar(() -> indiceB.buscar(id).isPresent());
+
+        servicoA.atualizarStatus(id, StatusAgendamento.EM_ATENDIMENTO);
+        aguardar(() -> indiceB.buscar(id).map(AgendamentoResponseDTO::status).orElse(null) == StatusAgendamento.EM_ATENDIMENTO);
+
+        // A versão da fila é a mesma nas duas instâncias: o ETag e o ?desde= de uma valem na outra
+        aguardar(() -> eventosA.versao().equals(eventosB.versao()));
+        assertFalse(versaoAntes.equals(eventosB.versao()));
+        FilaEventosService.AlteracoesFila alteracoes = eventosB.alteracoesDesde(versaoAntes).orElseThrow();
+        assertEquals(eventosA.versao(), alteracoes.versao());
+        assertTrue(alteracoes.agendamentos().stream()
+                .anyMatch(a -> a.id().equals(id) && a.status() == StatusAgendamento.EM_ATENDIMENTO));
+    }
+
+    @Test
+    void cadastroEmUmaInstanciaValeNaOutra() throws Exception {
+        String login = "barramento-" + UUID.randomUUID();
+        EpocaTokenService epocasB = instanciaB.getBean(EpocaTokenService.class);
+
+        // B guarda em cache que o login não existe
+        assertFalse(epocasB.valida(login, 0));
+
+        assertTrue(instanciaA.getBean(AutenticacaoService.class)
+                .cadastrar(new RegisterDTO(login, "senha-forte", UserRole.USER)).get());
+
+        aguardar(() -> epocasB.valida(login, 0));
+    }
+
+    // Derruba a conexão do LISTEN das duas instâncias; o que for gravado enquanto isso volta pela recarga do banco
+    @Test
+    void reconexaoRecarregaOQueFoiPerdido() {
+        MeterRegistry registroB = instanciaB.getBean(MeterRegistry.class);
+        double antes = ressincronizacoes(registroB);
+
+        instanciaA.getBean(JdbcTemplate.class).queryForList(
+                "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = 'sai-barramento'");
+        UUID id = agendar(instanciaA.getBean(AgendamentoService.class));
+
+        IndiceFilaService indiceB = instanciaB.getBean(IndiceFilaService.class);
+        aguardar(() -> indiceB.buscar(id).isPresent());
+        aguardar(() -> ressincronizacoes(registroB) > antes);
+    }
+
+    // Versões da sequence podem ficar sem evento (rollback depois do nextval): a fila segue sem recarregar,
+    // e se a versão pulada aparecer depois os ETags e ?desde= anteriores deixam de valer
+    @Test
+    void versaoQueNaoChegaEPuladaSemRecarregar() throws InterruptedException {
+        VersaoFilaRepository versoes = instanciaA.getBean(VersaoFilaRepository.class);
+        AgendamentoResponseDTO agendamento = instanciaA.getBean(AgendamentoService.class).criar(
+                BaseTesteFila.dados("Cidadão", "RG", PrioridadeAtendimento.NORMAL));
+        FilaEventosService eventos = new FilaEventosService(versoes, 1000, 256, 60_000, 0);
+        try {
+            String inicio = eventos.versao();
+            long pulada = versoes.reservar();
+            long seguinte = versoes.reservar();
+
+            eventos.publicar(seguinte, TipoEventoFila.CRIADO, agendamento);
+            assertEquals(inicio, eventos.versao());
+            pularLacuna(eventos);
+            assertEquals(Long.toString(seguinte), eventos.versao());
+            assertEquals(1, eventos.alteracoesDesde(inicio).orElseThrow().agendamentos().size());
+
+            eventos.publicar(pulada, TipoEventoFila.STATUS_ALTERADO, agendamento);
+            pularLacuna(eventos);
+            assertNotEquals(Long.toString(seguinte), eventos.versao());
+            assertTrue(eventos.alteracoesDesde(Long.toString(seguinte)).isEmpty());
+        } finally {
+            eventos.encerrar();
+        }
+    }
+
+    private static void pularLacuna(FilaEventosService eventos) throws InterruptedException {
+        Thread.sleep(5);
+        eventos.verificarLacuna();
+    }
+
+    private static ConfigurableApplicationContext subir() {
+        return new SpringApplicationBuilder(SaiApplication.class).run(
+                "--server.port=0",
+                "--sai.barramento.intervalo-ms=500");
+    }
+
+    private static UUID agendar(AgendamentoService servico) {
+        return servico.criar(BaseTesteFila.dados("Cidadão", "RG", PrioridadeAtendimento.NORMAL)).id();
+    }
+
+    private static double ressincronizacoes(MeterRegistry registro) {
+        var contador = registro.find("sai.barramento.ressincronizacoes").tag("motivo", "reconexao").counter();
+        return contador == null ? 0 : contador.count();
+    }
+
+    private static void aguardar(BooleanSupplier condicao) {
+        long limite = System.nanoTime() + PRAZO.toNanos();
+        while (!condicao.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                throw new AssertionError("Condição não atendida em " + PRAZO);
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
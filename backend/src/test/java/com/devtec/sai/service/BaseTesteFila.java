@@ -0,0 +1,50 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentosRequestDTO;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.repository.AgendamentosRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.UUID;
+
+// Testes que mexem na fila: cada um começa com a fila vazia no banco e no índice em memória
+@SpringBootTest
+abstract class BaseTesteFila {
+
+    @Autowired
+    protected AgendamentoService agendamentoService;
+
+    @Autowired
+    protected AgendamentosRepository repository;
+
+    @Autowired
+    protected IndiceFilaService indiceFila;
+
+    @BeforeEach
+    void limparFila() {
+        repository.deleteAllInBatch();
+        indiceFila.limpar();
+    }
+
+    protected static AgendamentosRequestDTO dados(String nome, String tipoServico, PrioridadeAtendimento prioridade) {
+        return new AgendamentosRequestDTO(nome, "52998224725", null, tipoServico, prioridade);
+    }
+
+    protected UUID agendar(String nome, String tipoServico, PrioridadeAtendimento prioridade) {
+        return agendamentoService.criar(dados(nome, tipoServico, prioridade)).id();
+    }
+
+    protected UUID agendar(String tipoServico, PrioridadeAtendimento prioridade) {
+        return agendar("Cidadão", tipoServico, prioridade);
+    }
+
+    protected UUID agendar(String tipoServico) {
+        return agendar(tipoServico, PrioridadeAtendimento.NORMAL);
+    }
+
+    protected UUID agendar() {
+        return agendar("OUTROS");
+    }
+}
@@ -0,0 +1,129 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.model.StatusAgendamento;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChamarProximoConcorrenciaTests extends BaseTesteFila {
+
+    private static final int GUICHES = 40;
+    private static final int CIDADAOS = 300;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void guichesConcorrentesNuncaChamamOMesmoCidadao() throws Exception {
+        for (int i = 0; i < CIDADAOS; i++) {
+            agendar("Cidadão " + i, "OUTROS", null);
+        }
+
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Callable<List<UUID>>> guiches = new ArrayList<>();
+        for (int i = 0; i < GUICHES; i++) {
+            guiches.add(() -> {
+                largada.await();
+                List<UUID> chamados = new ArrayList<>();
+                Optional<AgendamentoResponseDTO> proximo;
+                while ((proximo = agendamentoService.chamarProximo(null)).isPresent()) {
+                    assertEquals(StatusAgendamento.EM_ATENDIMENTO, proximo.get().status());
+                    chamados.add(proximo.get().id());
+                }
+                return chamados;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(GUICHES);
+        try {
+            List<Future<List<UUID>>> resultados = new ArrayList<>();
+            for (Callable<List<UUID>> guiche : guiches) {
+                resultados.add(executor.submit(guiche));
+            }
+            largada.countDown();
+
+            List<UUID> todos = new ArrayList<>();
+            for (Future<List<UUID>> resultado : resultados) {
+                todos.addAll(resultado.get());
+            }
+
+            Set<UUID> unicos = new HashSet<>(todos);
+            assertEquals(todos.size(), unicos.size(), "o mesmo cidadão foi chamado por dois guichês");
+            assertEquals(CIDADAOS, unicos.size());
+            assertTrue(agendamentoService.chamarProximo(null).isEmpty());
+            assertEquals(CIDADAOS, agendamentoService.contarPorStatus().get(StatusAgendamento.EM_ATENDIMENTO));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Cada guichê reserva a vez antes de ir ao banco: chamadas simultâneas seguem a proporção 2:1
+    @Test
+    void guichesConcorrentesSeguemAIntercalacao() throws Exception {
+        for (int i = 0; i < 60; i++) {
+            agendar("Preferencial " + i, "OUTROS", PrioridadeAtendimento.IDOSO);
+        }
+        for (int i = 0; i < 30; i++) {
+            agendar("Regular " + i, "OUTROS", null);
+        }
+
+        int chamadas = 30;
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(chamadas);
+        try {
+            List<Future<AgendamentoResponseDTO>> resultados = new ArrayList<>();
+            for (int i = 0; i < chamadas; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    return agendamentoService.chamarProximo(null).orElseThrow();
+                }));
+            }
+            largada.countDown();
+
+            int preferenciais = 0;
+            for (Future<AgendamentoResponseDTO> resultado : resultados) {
+                if (resultado.get().prioridade().preferencial()) preferenciais++;
+            }
+            assertEquals(20, preferenciais);
+            assertEquals(10, chamadas - preferenciais);
+            assertTrue(indiceFila.preferencialNaVez());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Chamada desfeita não conta na intercalação: o cidadão continua aguardando e a vez continua sendo dele
+    @Test
+    void chamadaDesfeitaNaoAvancaIntercalacao() {
+        agendar("OUTROS", PrioridadeAtendimento.IDOSO);
+
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < 2; i++) {
+            transacao.executeWithoutResult(status -> {
+                assertTrue(agendamentoService.chamarProximo(null).isPresent());
+                status.setRollbackOnly();
+            });
+        }
+
+        assertTrue(indiceFila.preferencialNaVez());
+        assertEquals(1, agendamentoService.contarPorStatus().get(StatusAgendamento.AGUARDANDO));
+    }
+}
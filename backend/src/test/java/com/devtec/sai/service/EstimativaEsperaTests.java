@@ -0,0 +1,128 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.EstimativaEsperaDTO;
+import com.devtec.sai.dto.ResumoEsperaDTO;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.model.StatusAgendamento;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EstimativaEsperaTests extends BaseTesteFila {
+
+    private static final double DURACAO_PADRAO = 600;
+
+    // Instância própria: a do contexto acumula as durações dos outros testes
+    private EstimativaEsperaService estimativa;
+
+    @BeforeEach
+    void criarEstimativa() {
+        estimativa = new EstimativaEsperaService(indiceFila, repository, 0.2, DURACAO_PADRAO, 500, 50, 1);
+    }
+
+    @Test
+    void semHistoricoUsaDuracaoPadraoEDivideEntreGuiches() {
+        agendar("RG");
+        agendar("RG");
+        UUID terceiro = agendar("CPF");
+
+        EstimativaEsperaDTO antes = estimativa.estimar(terceiro);
+        assertEquals(3, antes.posicao());
+        assertEquals(1, antes.guichesAtivos());
+        assertEquals(2 * DURACAO_PADRAO, antes.esperaEstimadaSegundos());
+
+        // Os dois da frente em atendimento: dois guichês ocupados e ninguém mais à frente
+        agendamentoService.chamarProximo(null).orElseThrow();
+        agendamentoService.chamarProximo(null).orElseThrow();
+
+        EstimativaEsperaDTO depois = estimativa.estimar(terceiro);
+        assertEquals(1, depois.posicao());
+        assertEquals(2, depois.guichesAtivos());
+        assertEquals(0, depois.esperaEstimadaSegundos());
+    }
+
+    @Test
+    void aprendeADuracaoPorTipoComAsTransicoes() {
+        UUID atendido = agendar("RG");
+        agendar("RG");
+        UUID ultimo = agendar("RG");
+
+        AgendamentoResponseDTO emAtendimento = agendamentoService.atualizarStatus(atendido, StatusAgendamento.EM_ATENDIMENTO);
+        estimativa.registrar(emAtendimento);
+        estimativa.registrar(agendamentoService.atualizarStatus(atendido, StatusAgendamento.CONCLUIDO));
+
+        // O atendimento levou milissegundos: a média do RG substitui a duração padrão
+        EstimativaEsperaDTO previsao = estimativa.estimar(ultimo);
+        assertEquals(2, previsao.posicao());
+        assertTrue(previsao.esperaEstimadaSegundos() < 5);
+
+        ResumoEsperaDTO resumo = estimativa.resumir();
+        assertEquals(2, resumo.aguardando());
+        assertEquals(1, resumo.tipos().size());
+        assertEquals("RG", resumo.tipos().get(0).tipoServico());
+        assertEquals(1, resumo.tipos().get(0).amostras());
+    }
+
+    @Test
+    void quemNaoEstaAguardandoNaoTemPosicao() {
+        UUID id = agendar("RG");
+        agendamentoService.atualizarStatus(id, StatusAgendamento.CANCELADO);
+
+        EstimativaEsperaDTO previsao = estimativa.estimar(id);
+        assertNull(previsao.posicao());
+        assertEquals(0, previsao.esperaEstimadaSegundos());
+    }
+
+    @Test
+    void posicaoSegueAIntercalacaoDePreferenciais() {
+        for (int i = 0; i < 3; i++) agendar("RG");
+        for (int i = 0; i < 4; i++) agendar("CPF", PrioridadeAtendimento.IDOSO);
+
+        List<AgendamentoResponseDTO> ordem = indiceFila.ordemDeAtendimento(null, Integer.MAX_VALUE);
+        for (int i = 0; i < ordem.size(); i++) {
+            assertEquals(i + 1, estimativa.estimar(ordem.get(i).id()).posicao());
+        }
+    }
+
+    @Test
+    void semIndiceEstimaPeloBanco() {
+        UUID regular1 = agendar("RG");
+        UUID regular2 = agendar("RG");
+        UUID preferencial1 = agendar("CPF", PrioridadeAtendimento.IDOSO);
+        agendar("CPF", PrioridadeAtendimento.GESTANTE);
+        UUID preferencial3 = agendar("CPF", PrioridadeAtendimento.PCD);
+
+        // Índice desligado, sem chamadas: P1 P2 R1 P3 R2
+        EstimativaEsperaService peloBanco = new EstimativaEsperaService(new IndiceFilaService(repository, false, 2),
+                repository, 0.2, DURACAO_PADRAO, 500, 50, 1);
+        assertEquals(1, peloBanco.estimar(preferencial1).posicao());
+        assertEquals(3, peloBanco.estimar(regular1).posicao());
+        assertEquals(4, peloBanco.estimar(preferencial3).posicao());
+
+        EstimativaEsperaDTO ultimo = peloBanco.estimar(regular2);
+        assertEquals(5, ultimo.posicao());
+        assertEquals(4 * DURACAO_PADRAO, ultimo.esperaEstimadaSegundos());
+
+        ResumoEsperaDTO resumo = peloBanco.resumir();
+        assertEquals(5, resumo.aguardando());
+        assertEquals(2, resumo.tipos().size());
+    }
+
+    @Test
+    void histogramaFicaPertoDoPercentilReal() {
+        HistogramaDuracoes histograma = new HistogramaDuracoes(100_000);
+        for (int segundos = 1; segundos <= 1000; segundos++) {
+            histograma.registrar(segundos);
+        }
+
+        assertEquals(500, histograma.percentil(0.5), 500 * 0.15);
+        assertEquals(900, histograma.percentil(0.9), 900 * 0.15);
+    }
+}
@@ -0,0 +1,114 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.FiltroExportacaoDTO;
+import com.devtec.sai.exception.ParametroInvalidoException;
+import com.devtec.sai.model.FormatoExportacao;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.model.StatusAgendamento;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportacaoTests extends BaseTesteFila {
+
+    @Autowired
+    private ExportacaoService exportacaoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // tb_agendamentos_historico guarda expedientes de outras execuções: cada teste usa um tipo de serviço só dele
+    private String tipo;
+
+    @BeforeEach
+    void sortearTipo() {
+        tipo = "EXP-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @AfterEach
+    void limparHistorico() {
+        jdbcTemplate.update("DELETE FROM tb_agendamentos_historico WHERE tipo_servico = ?", tipo);
+    }
+
+    @Test
+    void csvIncluiExpedientesArquivadosEEscapaCampos() {
+        UUID arquivado = UUID.randomUUID();
+        jdbcTemplate.update("""
+                INSERT INTO tb_agendamentos_historico (id, nome_solicitante, cpf, tipo_servico, data_hora_chegada, status)
+                VALUES (?, 'Arquivado', '52998224725', ?, ?, 'CONCLUIDO')
+                """, arquivado, tipo, Timestamp.valueOf(LocalDateTime.now().minusDays(30)));
+        UUID atual = agendar("Silva, \"Zé\" da", tipo, PrioridadeAtendimento.NORMAL);
+
+        List<String> linhas = exportar(new FiltroExportacaoDTO(null, null, null, tipo), FormatoExportacao.CSV, false)
+                .lines().toList();
+
+        assertEquals(3, linhas.size());
+        assertEquals("id,nome_solicitante,cpf,rg,tipo_servico,prioridade,data_hora_chegada,status", linhas.get(0));
+        assertTrue(linhas.get(1).startsWith(arquivado + ",Arquivado,52998224725,," + tipo + ",NORMAL,"));
+        assertTrue(linhas.get(2).startsWith(atual + ",\"Silva, \"\"Zé\"\" da\",52998224725,," + tipo + ",NORMAL,"));
+        assertTrue(linhas.get(2).endsWith(",AGUARDANDO"));
+    }
+
+    @Test
+    void ndjsonCompactadoRespeitaOsFiltros() throws IOException {
+        agendar("Ana Lima", tipo, PrioridadeAtendimento.NORMAL);
+        UUID atendido = agendar("Bruno Reis", tipo, PrioridadeAtendimento.NORMAL);
+        agendar("Carla Dias", "CPF", PrioridadeAtendimento.NORMAL);
+        agendamentoService.atualizarStatus(atendido, StatusAgendamento.EM_ATENDIMENTO);
+
+        LocalDate hoje = LocalDate.now();
+        String conteudo = exportar(new FiltroExportacaoDTO(hoje, hoje, StatusAgendamento.AGUARDANDO, tipo),
+                FormatoExportacao.NDJSON, true);
+
+        List<String> linhas = conteudo.lines().toList();
+        assertEquals(1, linhas.size());
+        JsonNode linha = objectMapper.readTree(linhas.get(0));
+        assertEquals("Ana Lima", linha.get("nomeSolicitante").asText());
+        assertEquals("AGUARDANDO", linha.get("status").asText());
+
+        String ontem = exportar(new FiltroExportacaoDTO(hoje.minusDays(1), hoje.minusDays(1), null, tipo),
+                FormatoExportacao.NDJSON, true);
+        assertEquals("", ontem);
+    }
+
+    @Test
+    void periodoInvertidoERecusado() {
+        LocalDate hoje = LocalDate.now();
+        assertThrows(ParametroInvalidoException.class, () -> new FiltroExportacaoDTO(hoje, hoje.minusDays(1), null, null));
+    }
+
+    private String exportar(FiltroExportacaoDTO filtro, FormatoExportacao formato, boolean compactar) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoService.exportar(filtro, formato, compactar, saida);
+        if (!compactar) {
+            return saida.toString(StandardCharsets.UTF_8);
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(saida.toByteArray()))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
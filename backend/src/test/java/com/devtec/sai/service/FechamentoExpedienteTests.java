@@ -0,0 +1,130 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.FechamentoExpedienteDTO;
+import com.devtec.sai.model.SituacaoFechamento;
+import com.devtec.sai.repository.FechamentosExpedienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FechamentoExpedienteTests extends BaseTesteFila {
+
+    @Autowired
+    private FechamentoExpedienteService fechamentoService;
+
+    @Autowired
+    private FechamentosExpedienteRepository fechamentos;
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    @Autowired
+    private ParticoesAgendamentoService particoesService;
+
+    @Autowired
+    private FilaEventosService filaEventosService;
+
+    @Autowired
+    private EstimativaEsperaService estimativaEspera;
+
+    @Autowired
+    private BarramentoEventosService barramento;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void limparFechamentos() {
+        jdbcTemplate.update("DELETE FROM tb_fechamentos_expediente");
+    }
+
+    @Test
+    void outraInstanciaVeOMesmoJobEEntregaORelatorio() throws InterruptedException {
+        agendar();
+
+        FechamentoExpedienteDTO solicitado = fechamentoService.solicitar();
+        FechamentoExpedienteService outraInstancia = new FechamentoExpedienteService(relatorioService, particoesService,
+                indiceFila, filaEventosService, estimativaEspera, barramento, fechamentos, transactionManager, "", 24, 30);
+        try {
+            assertEquals(solicitado.id(), outraInstancia.solicitar().id());
+
+            FechamentoExpedienteDTO concluido = aguardarFim(outraInstancia, solicitado.id());
+            assertEquals(SituacaoFechamento.CONCLUIDO, concluido.situacao());
+            assertEquals(100, concluido.progresso());
+
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            outraInstancia.copiarRelatorio(solicitado.id(), pdf);
+            assertTrue(pdf.toString(StandardCharsets.ISO_8859_1).startsWith("%PDF"));
+        } finally {
+            outraInstancia.encerrar();
+        }
+    }
+
+    // Agendamentos criados durante o fechamento ou entram no relatório e são arquivados, ou ficam para o
+    // expediente seguinte: nunca arquivados sem aparecer no PDF
+    @Test
+    void relatorioMostraExatamenteOQueFoiArquivado() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            agendar();
+        }
+
+        FechamentoExpedienteDTO solicitado = fechamentoService.solicitar();
+        AtomicBoolean fim = new AtomicBoolean();
+        AtomicInteger criados = new AtomicInteger(200);
+        Thread guiche = Thread.ofVirtual().start(() -> {
+            while (!fim.get()) {
+                agendar();
+                criados.incrementAndGet();
+            }
+        });
+
+        FechamentoExpedienteDTO concluido = aguardarFim(fechamentoService, solicitado.id());
+        fim.set(true);
+        guiche.join();
+
+        assertEquals(SituacaoFechamento.CONCLUIDO, concluido.situacao());
+        assertEquals(criados.get(), concluido.processados() + repository.count());
+    }
+
+    @Test
+    void jobParadoDeOutraInstanciaLiberaODia() throws InterruptedException {
+        UUID abandonado = UUID.randomUUID();
+        fechamentos.criar(abandonado, LocalDate.now());
+        jdbcTemplate.update("UPDATE tb_fechamentos_expediente SET atualizado_em = now() - interval '1 hour' WHERE id = ?",
+                abandonado);
+
+        FechamentoExpedienteDTO novo = fechamentoService.solicitar();
+        assertNotEquals(abandonado, novo.id());
+        assertEquals(SituacaoFechamento.FALHOU, fechamentoService.consultar(abandonado).situacao());
+
+        // O novo job arquiva o expediente: termina antes do próximo teste
+        assertEquals(SituacaoFechamento.CONCLUIDO, aguardarFim(fechamentoService, novo.id()).situacao());
+    }
+
+    private FechamentoExpedienteDTO aguardarFim(FechamentoExpedienteService service, UUID id) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 30_000;
+        FechamentoExpedienteDTO fechamento = service.consultar(id);
+        while (fechamento.situacao() != SituacaoFechamento.CONCLUIDO && fechamento.situacao() != SituacaoFechamento.FALHOU
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(100);
+            fechamento = service.consultar(id);
+        }
+        return fechamento;
+    }
+}
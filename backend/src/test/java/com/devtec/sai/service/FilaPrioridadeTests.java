@@ -0,0 +1,127 @@
+package com.devtec.sai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilaPrioridadeTests {
+
+    private static final List<String> PREFERENCIAIS = List.of("P1", "P2", "P3");
+    private static final List<String> REGULARES = List.of("R1", "R2");
+
+    @Test
+    void intercalaUmPreferencialPorRegular() {
+        assertEquals(List.of("P1", "R1", "P2", "R2", "P3"),
+                FilaPrioridade.intercalar(PREFERENCIAIS, REGULARES, 1, 0, 10));
+    }
+
+    @Test
+    void intercalaDoisPreferenciaisPorRegular() {
+        assertEquals(List.of("P1", "P2", "R1", "P3", "R2"),
+                FilaPrioridade.intercalar(PREFERENCIAIS, REGULARES, 2, 0, 10));
+    }
+
+    @Test
+    void classeVaziaNaoSeguraAOutra() {
+        assertEquals(REGULARES, FilaPrioridade.intercalar(List.of(), REGULARES, 1, 0, 10));
+        assertEquals(PREFERENCIAIS, FilaPrioridade.intercalar(PREFERENCIAIS, List.of(), 1, 1, 10));
+        assertEquals(List.of(), FilaPrioridade.intercalar(List.of(), List.of(), 2, 0, 10));
+    }
+
+    // Preferenciais já chamados em sequência encurtam a primeira sequência
+    @Test
+    void preferenciaisSeguidosDeslocamAPrimeiraSequencia() {
+        assertEquals(List.of("P1", "R1", "P2", "P3", "R2"),
+                FilaPrioridade.intercalar(PREFERENCIAIS, REGULARES, 2, 1, 10));
+        assertEquals(List.of("R1", "P1", "P2", "R2", "P3"),
+                FilaPrioridade.intercalar(PREFERENCIAIS, REGULARES, 2, 2, 10));
+    }
+
+    @Test
+    void intercalarParaNoLimite() {
+        assertEquals(List.of("P1", "P2", "R1"), FilaPrioridade.intercalar(PREFERENCIAIS, REGULARES, 2, 0, 3));
+    }
+
+    @Test
+    void outrosAFrenteContaAOutraClasse() {
+        // N=2, nenhum seguido: P P R P P R ...
+        assertEquals(0, FilaPrioridade.outrosAFrente(true, 0, 2, 0));
+        assertEquals(0, FilaPrioridade.outrosAFrente(true, 1, 2, 0));
+        assertEquals(1, FilaPrioridade.outrosAFrente(true, 2, 2, 0));
+        assertEquals(2, FilaPrioridade.outrosAFrente(false, 0, 2, 0));
+        assertEquals(4, FilaPrioridade.outrosAFrente(false, 1, 2, 0));
+
+        // N=2 com a sequência já completa: o regular é o próximo
+        assertEquals(0, FilaPrioridade.outrosAFrente(false, 0, 2, 2));
+        assertEquals(1, FilaPrioridade.outrosAFrente(true, 0, 2, 2));
+    }
+
+    // A conta fechada bate com a simulação para qualquer N e deslocamento, com as duas classes cheias
+    @Test
+    void outrosAFrenteConcordaComIntercalar() {
+        List<String> preferenciais = nomes("P", 20);
+        List<String> regulares = nomes("R", 20);
+
+        for (int n = 1; n <= 3; n++) {
+            for (int seguidos = 0; seguidos <= n; seguidos++) {
+                List<String> ordem = FilaPrioridade.intercalar(preferenciais, regulares, n, seguidos, 20);
+                int pref = 0;
+                int reg = 0;
+                for (String nome : ordem) {
+                    boolean preferencial = nome.startsWith("P");
+                    assertEquals(preferencial ? reg : pref,
+                            FilaPrioridade.outrosAFrente(preferencial, preferencial ? pref : reg, n, seguidos),
+                            nome + " com N=" + n + " e " + seguidos + " seguidos");
+                    if (preferencial) pref++; else reg++;
+                }
+            }
+        }
+    }
+
+    @Test
+    void percorrerAFrenteVisitaQuemVemAntesNaOrdemDeAtendimento() {
+        for (int n = 1; n <= 2; n++) {
+            FilaPrioridade<Integer, String> fila = new FilaPrioridade<>(Comparator.naturalOrder(), n);
+            // Mais preferenciais que regulares: a outra classe acaba antes no fim da ordem
+            for (int i = 1; i <= 12; i++) {
+                boolean preferencial = i % 3 != 0;
+                fila.enfileirar(i, preferencial, (preferencial ? "P" : "R") + i);
+            }
+            fila.reservarVez();
+
+            List<String> ordem = fila.ordemDeAtendimento(100);
+            for (int i = 1; i <= 12; i++) {
+                Set<String> visitados = new HashSet<>();
+                assertTrue(fila.percorrerAFrente(i, visitados::add));
+
+                String valor = (i % 3 != 0 ? "P" : "R") + i;
+                assertEquals(new HashSet<>(ordem.subList(0, ordem.indexOf(valor))), visitados,
+                        valor + " com N=" + n);
+            }
+        }
+    }
+
+    @Test
+    void percorrerAFrenteDeQuemNaoEstaNaFila() {
+        FilaPrioridade<Integer, String> fila = new FilaPrioridade<>(Comparator.naturalOrder(), 2);
+        fila.enfileirar(1, true, "P1");
+
+        assertFalse(fila.percorrerAFrente(2, valor -> { }));
+    }
+
+    private static List<String> nomes(String prefixo, int quantidade) {
+        List<String> nomes = new ArrayList<>();
+        for (int i = 1; i <= quantidade; i++) {
+            nomes.add(prefixo + i);
+        }
+        return nomes;
+    }
+}
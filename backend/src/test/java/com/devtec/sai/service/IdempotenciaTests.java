@@ -0,0 +1,108 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.dto.AgendamentosRequestDTO;
+import com.devtec.sai.exception.ChaveIdempotenciaReutilizadaException;
+import com.devtec.sai.model.PrioridadeAtendimento;
+import com.devtec.sai.model.StatusAgendamento;
+import com.devtec.sai.repository.ChavesIdempotenciaRepository;
+import com.devtec.sai.util.UuidV7;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotenciaTests extends BaseTesteFila {
+
+    private static final int REPETICOES = 20;
+    private static final AgendamentosRequestDTO DADOS = dados("Cidadão", "OUTROS", null);
+    private static final AgendamentosRequestDTO OUTROS_DADOS = dados("Outro cidadão", "OUTROS", null);
+
+    @Autowired
+    private ChavesIdempotenciaRepository chavesRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void repeticoesSimultaneasCriamUmSoAgendamento() throws Exception {
+        String chave = UUID.randomUUID().toString();
+
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<AgendamentoResponseDTO>> respostas = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(REPETICOES)) {
+            for (int i = 0; i < REPETICOES; i++) {
+                respostas.add(executor.submit(() -> {
+                    largada.await();
+                    return agendamentoService.criar(DADOS, chave);
+                }));
+            }
+            largada.countDown();
+
+            UUID id = respostas.get(0).get().id();
+            for (Future<AgendamentoResponseDTO> resposta : respostas) {
+                assertEquals(id, resposta.get().id());
+            }
+        }
+        assertEquals(1, repository.count());
+        assertEquals(respostaGravada(chave), agendamentoService.criar(DADOS, chave));
+    }
+
+    // Chave gravada por outra instância: a resposta vem da tabela, sem INSERT em tb_agendamentos
+    @Test
+    void chaveRegistradaEmOutraInstanciaDevolveARespostaOriginal() throws Exception {
+        String chave = UUID.randomUUID().toString();
+        AgendamentoResponseDTO original = new AgendamentoResponseDTO(UuidV7.gerar(), "Cidadão", "52998224725", "OUTROS",
+                PrioridadeAtendimento.NORMAL, LocalDateTime.now().withNano(0), StatusAgendamento.AGUARDANDO);
+        chavesRepository.registrar(chave, null, original.id(), objectMapper.writeValueAsString(original));
+
+        assertEquals(original, agendamentoService.criar(DADOS, chave));
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void mesmaChaveComOutroCorpoERecusada() {
+        String chave = UUID.randomUUID().toString();
+        agendamentoService.criar(DADOS, chave);
+
+        assertThrows(ChaveIdempotenciaReutilizadaException.class, () -> agendamentoService.criar(OUTROS_DADOS, chave));
+        assertEquals(1, repository.count());
+    }
+
+    // Chave gravada por outra instância com outro corpo: o hash vem da tabela
+    @Test
+    void chaveRegistradaEmOutraInstanciaComOutroCorpoERecusada() throws Exception {
+        String chave = UUID.randomUUID().toString();
+        AgendamentoResponseDTO original = new AgendamentoResponseDTO(UuidV7.gerar(), "Outro cidadão", "52998224725", "OUTROS",
+                PrioridadeAtendimento.NORMAL, LocalDateTime.now().withNano(0), StatusAgendamento.AGUARDANDO);
+        chavesRepository.registrar(chave, "0".repeat(64), original.id(), objectMapper.writeValueAsString(original));
+
+        assertThrows(ChaveIdempotenciaReutilizadaException.class, () -> agendamentoService.criar(DADOS, chave));
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void chavesDiferentesCriamAgendamentosDiferentes() {
+        AgendamentoResponseDTO primeiro = agendamentoService.criar(DADOS, UUID.randomUUID().toString());
+        AgendamentoResponseDTO segundo = agendamentoService.criar(DADOS, UUID.randomUUID().toString());
+
+        assertNotEquals(primeiro.id(), segundo.id());
+        assertEquals(2, repository.count());
+    }
+
+    private AgendamentoResponseDTO respostaGravada(String chave) throws Exception {
+        return objectMapper.readValue(chavesRepository.buscar(chave).orElseThrow().resposta(), AgendamentoResponseDTO.class);
+    }
+}
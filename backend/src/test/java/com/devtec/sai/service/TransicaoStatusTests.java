@@ -0,0 +1,73 @@
+package com.devtec.sai.service;
+
+import com.devtec.sai.dto.AgendamentoResponseDTO;
+import com.devtec.sai.exception.ConflitoException;
+import com.devtec.sai.exception.RecursoNaoEncontradoException;
+import com.devtec.sai.model.StatusAgendamento;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransicaoStatusTests extends BaseTesteFila {
+
+    private static final int GUICHES = 20;
+
+    @Test
+    void seguemATabelaDeTransicoes() {
+        UUID id = agendar();
+
+        assertThrows(ConflitoException.class, () -> agendamentoService.atualizarStatus(id, StatusAgendamento.CONCLUIDO));
+        assertThrows(ConflitoException.class, () -> agendamentoService.atualizarStatus(id, StatusAgendamento.AGUARDANDO));
+
+        assertEquals(StatusAgendamento.EM_ATENDIMENTO, agendamentoService.atualizarStatus(id, StatusAgendamento.EM_ATENDIMENTO).status());
+        assertEquals(StatusAgendamento.CONCLUIDO, agendamentoService.atualizarStatus(id, StatusAgendamento.CONCLUIDO).status());
+
+        assertThrows(ConflitoException.class, () -> agendamentoService.atualizarStatus(id, StatusAgendamento.CANCELADO));
+        assertEquals(StatusAgendamento.CONCLUIDO, repository.buscarStatus(id).orElseThrow());
+    }
+
+    @Test
+    void agendamentoInexistenteDa404() {
+        assertThrows(RecursoNaoEncontradoException.class,
+                () -> agendamentoService.atualizarStatus(UUID.randomUUID(), StatusAgendamento.EM_ATENDIMENTO));
+    }
+
+    @Test
+    void guichesConcorrentesNoMesmoAgendamentoSoUmVence() throws Exception {
+        UUID id = agendar();
+
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<AgendamentoResponseDTO>> tentativas = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(GUICHES)) {
+            for (int i = 0; i < GUICHES; i++) {
+                tentativas.add(executor.submit(() -> {
+                    largada.await();
+                    return agendamentoService.atualizarStatus(id, StatusAgendamento.EM_ATENDIMENTO);
+                }));
+            }
+            largada.countDown();
+
+            int vencedores = 0;
+            for (Future<AgendamentoResponseDTO> tentativa : tentativas) {
+                try {
+                    tentativa.get();
+                    vencedores++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(ConflitoException.class, e.getCause());
+                }
+            }
+            assertEquals(1, vencedores);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.devtec.sai.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArquivoAtomicoOutputStreamTests {
+
+    @TempDir
+    private Path pasta;
+
+    @Test
+    void concluirTrocaODestinoInteiro() throws IOException {
+        Path destino = pasta.resolve("relatorio.pdf");
+        Files.writeString(destino, "anterior");
+
+        try (ArquivoAtomicoOutputStream saida = new ArquivoAtomicoOutputStream(destino)) {
+            saida.write("novo".getBytes(StandardCharsets.UTF_8));
+            saida.concluir();
+        }
+
+        assertEquals("novo", Files.readString(destino));
+        assertEquals(1, arquivos());
+    }
+
+    // Falha no meio: o arquivo anterior continua lá e o temporário some
+    @Test
+    void fecharSemConcluirDescartaOTemporario() throws IOException {
+        Path destino = pasta.resolve("relatorio.pdf");
+        Files.writeString(destino, "anterior");
+
+        try (ArquivoAtomicoOutputStream saida = new ArquivoAtomicoOutputStream(destino)) {
+            saida.write("pela met".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals("anterior", Files.readString(destino));
+        assertEquals(1, arquivos());
+    }
+
+    private long arquivos() throws IOException {
+        try (Stream<Path> conteudo = Files.list(pasta)) {
+            return conteudo.count();
+        }
+    }
+}
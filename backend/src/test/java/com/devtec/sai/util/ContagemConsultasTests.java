@@ -0,0 +1,40 @@
+package com.devtec.sai.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContagemConsultasTests {
+
+    @AfterEach
+    void encerrar() {
+        ContagemConsultas.encerrar();
+    }
+
+    @Test
+    void mesmaConsultaComParametrosDiferentesContaComoRepeticao() {
+        ContagemConsultas contagem = ContagemConsultas.iniciar();
+        for (int i = 0; i < 5; i++) {
+            ContagemConsultas.registrar("SELECT * FROM tb_usuarios WHERE login = 'usuario-" + i + "' AND epoca_token = " + i, 0);
+        }
+        ContagemConsultas.registrar("SELECT * FROM tb_agendamentos WHERE id IN (?, ?, ?)", 0);
+        ContagemConsultas.registrar("SELECT * FROM tb_agendamentos\n  WHERE id IN (?)", 0);
+
+        assertEquals(7, contagem.getConsultas());
+        assertEquals(Map.of(
+                "SELECT * FROM tb_usuarios WHERE login = ? AND epoca_token = ?", 5,
+                "SELECT * FROM tb_agendamentos WHERE id IN (?)", 2
+        ), contagem.repetidasAcimaDe(1));
+        assertTrue(contagem.repetidasAcimaDe(5).isEmpty());
+    }
+
+    @Test
+    void identificadoresComNumerosNaoSaoNormalizados() {
+        assertEquals("select a1_0.id from tb_agendamentos_p20260101 a1_0 where a1_0.id=?",
+                ContagemConsultas.normalizar("select a1_0.id from tb_agendamentos_p20260101 a1_0 where a1_0.id=?"));
+    }
+}
@@ -0,0 +1,24 @@
+package com.devtec.sai.util;
+
+import com.devtec.sai.config.ContagemConsultasFilter;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Verifica pelo MockMvc quantas idas ao banco a requisição fez (contadas pelo ContagemConsultasFilter).
+// Uso: mockMvc.perform(...).andExpect(LimiteConsultas.noMaximo(3))
+public final class LimiteConsultas {
+
+    private LimiteConsultas() {
+    }
+
+    public static ResultMatcher noMaximo(int limite) {
+        return resultado -> {
+            Object consultas = resultado.getRequest().getAttribute(ContagemConsultasFilter.ATRIBUTO_CONSULTAS);
+            assertNotNull(consultas, "Requisição não passou pelo ContagemConsultasFilter");
+            assertTrue((int) consultas <= limite, resultado.getRequest().getMethod() + " "
+                    + resultado.getRequest().getRequestURI() + " fez " + consultas + " consultas ao banco (limite " + limite + ")");
+        };
+    }
+}
@@ -1,4 +1,4 @@
-import React, { useState, useEffect, useCallback } from 'react';
+import React, { useState, useEffect, useCallback, useRef } from 'react';
 import Grid from '@mui/material/Grid';
 
 import {
@@ -59,6 +59,15 @@ interface Agendamento {
     status: 'AGUARDANDO' | 'EM_ATENDIMENTO' | 'CONCLUIDO' | 'CANCELADO';
 }
 
+type StatusAgendamento = Agendamento['status'];
+
+// Cada coluna do quadro tem a sua paginação por cursor
+interface Coluna {
+    itens: Agendamento[];
+    cursor: string | null;
+    carregando: boolean;
+}
+
 interface FormData {
     nomeSolicitante: string;
     cpf: string;
@@ -84,6 +93,34 @@ const PRIORIDADES = [
     { value: 'PCD', label: 'PCD' },
 ];
 
+const COLUNAS: { status: StatusAgendamento; titulo: string }[] = [
+    { status: 'AGUARDANDO', titulo: 'Aguardando' },
+    { status: 'EM_ATENDIMENTO', titulo: 'Em Atendimento' },
+    { status: 'CONCLUIDO', titulo: 'Concluídos' },
+    { status: 'CANCELADO', titulo: 'Cancelados' },
+];
+
+const TAMANHO_PAGINA = 50;
+// Limite do backend por requisição (sai.fila.pagina.limite-maximo)
+const LIMITE_MAXIMO = 500;
+
+const colunasVazias = (): Record<StatusAgendamento, Coluna> => ({
+    AGUARDANDO: { itens: [], cursor: null, carregando: false },
+    EM_ATENDIMENTO: { itens: [], cursor: null, carregando: false },
+    CONCLUIDO: { itens: [], cursor: null, carregando: false },
+    CANCELADO: { itens: [], cursor: null, carregando: false },
+});
+
+const buscarPagina = async (status: StatusAgendamento, cursor: string | null, limite: number) => {
+    const response = await api.get<Agendamento[]>('/agendamentos/consultar_agendamentos', {
+        params: { status, cursor: cursor ?? undefined, limite },
+    });
+    return {
+        itens: response.data,
+        cursor: (response.headers['x-proximo-cursor'] as string | undefined) ?? null,
+    };
+};
+
 // ---------- Helpers ----------
 const statusColorMap: Record<Agendamento['status'], string> = {
     AGUARDANDO: '#ed6c02',
@@ -102,7 +139,13 @@ const prioridadeShortLabel = (prioridade: string) => {
 // ===============================
 export default function AgendamentoPage() {
 
-    const [agendamentos, setAgendamentos] = useState<Agendamento[]>([]);
+    const [colunas, setColunas] = useState<Record<StatusAgendamento, Coluna>>(colunasVazias);
+    const [contagem, setContagem] = useState<Partial<Record<StatusAgendamento, number>>>({});
+    // Última versão das colunas para os callbacks estáveis (recarga e "Carregar mais")
+    const colunasRef = useRef(colunas);
+    useEffect(() => {
+        colunasRef.current = colunas;
+    }, [colunas]);
     const [submitting, setSubmitting] = useState(false);
     const [updatingId, setUpdatingId] = useState<string | null>(null);
     const [modalOpen, setModalOpen] = useState(false);
@@ -116,6 +159,9 @@ export default function AgendamentoPage() {
         dataHoraChegada: '',
     });
 
+    // Mesma chave enquanto o formulário não for gravado: reenviar depois de um erro de rede não duplica o agendamento
+    const chaveIdempotencia = useRef<string>(crypto.randomUUID());
+
     const [toast, setToast] = useState({
         open: false,
         message: '',
@@ -123,15 +169,94 @@ export default function AgendamentoPage() {
     });
 
     // ---------- Fetch ----------
+    // Filtra por status no servidor e traz só a primeira página de cada coluna; o resto vem pelo "Carregar mais".
+    // Ao recarregar, cada coluna mantém quantos itens já mostrava (até o limite do backend).
     const fetchAgendamentos = useCallback(async () => {
-        const response = await api.get<Agendamento[]>('/agendamentos/consultar_agendamentos');
-        setAgendamentos(response.data);
+        const [paginas, totais] = await Promise.all([
+            Promise.all(COLUNAS.map(({ status }) => buscarPagina(status, null,
+                Math.min(LIMITE_MAXIMO, Math.max(TAMANHO_PAGINA, colunasRef.current[status].itens.length))))),
+            api.get<Record<StatusAgendamento, number>>('/agendamentos/contagem'),
+        ]);
+
+        const novas = colunasVazias();
+        COLUNAS.forEach(({ status }, i) => {
+            novas[status] = { ...paginas[i], carregando: false };
+        });
+        setColunas(novas);
+        setContagem(totais.data);
     }, []);
 
+    const carregarMais = async (status: StatusAgendamento) => {
+        const coluna = colunasRef.current[status];
+        if (!coluna.cursor || coluna.carregando) return;
+
+        setColunas(atuais => ({ ...atuais, [status]: { ...atuais[status], carregando: true } }));
+        try {
+            const pagina = await buscarPagina(status, coluna.cursor, TAMANHO_PAGINA);
+            setColunas(atuais => ({
+                ...atuais,
+                [status]: { itens: [...atuais[status].itens, ...pagina.itens], cursor: pagina.cursor, carregando: false },
+            }));
+        } catch {
+            setColunas(atuais => ({ ...atuais, [status]: { ...atuais[status], carregando: false } }));
+            setToast({
+                open: true,
+                message: 'Erro ao carregar mais agendamentos.',
+                severity: 'error',
+            });
+        }
+    };
+
     useEffect(() => {
         fetchAgendamentos();
     }, [fetchAgendamentos]);
 
+    // ---------- Tempo real ----------
+    // EventSource não envia Authorization: cada conexão usa um token curto só do stream (POST /eventos/token).
+    // Quando a conexão cai o token já pode ter expirado, então ela é reaberta com outro a partir do último evento.
+    // Rajadas de eventos viram uma recarga só.
+    useEffect(() => {
+        let fonte: EventSource | null = null;
+        let encerrado = false;
+        let ultimoEventoId: string | null = null;
+        let reconexao: ReturnType<typeof setTimeout> | undefined;
+        let recarga: ReturnType<typeof setTimeout> | undefined;
+
+        const agendarRecarga = (evento: MessageEvent) => {
+            if (evento.lastEventId) ultimoEventoId = evento.lastEventId;
+            clearTimeout(recarga);
+            recarga = setTimeout(() => { fetchAgendamentos().catch(() => undefined); }, 300);
+        };
+
+        const conectar = async () => {
+            try {
+                const { data } = await api.post<{ token: string }>('/agendamentos/eventos/token');
+                if (encerrado) return;
+
+                const params = new URLSearchParams({ token: data.token });
+                if (ultimoEventoId) params.set('ultimoEventoId', ultimoEventoId);
+                fonte = new EventSource(`${api.defaults.baseURL}/agendamentos/eventos?${params}`);
+
+                ['CRIADO', 'STATUS_ALTERADO', 'RESINCRONIZAR'].forEach(tipo =>
+                    fonte?.addEventListener(tipo, agendarRecarga as EventListener));
+                fonte.onerror = () => {
+                    fonte?.close();
+                    if (!encerrado) reconexao = setTimeout(conectar, 3000);
+                };
+            } catch {
+                if (!encerrado) reconexao = setTimeout(conectar, 10000);
+            }
+        };
+
+        conectar();
+        return () => {
+            encerrado = true;
+            clearTimeout(reconexao);
+            clearTimeout(recarga);
+            fonte?.close();
+        };
+    }, [fetchAgendamentos]);
+
     // ---------- Submit ----------
     const handleSubmit = async (e: React.FormEvent) => {
         e.preventDefault();
@@ -141,7 +266,10 @@ export default function AgendamentoPage() {
             await api.post('/agendamentos/agendar', {
                 ...formData,
                 cpf: formData.cpf.replace(/\D/g, ''),
+            }, {
+                headers: { 'Idempotency-Key': chaveIdempotencia.current },
             });
+            chaveIdempotencia.current = crypto.randomUUID();
 
             setToast({
                 open: true,
@@ -178,9 +306,19 @@ export default function AgendamentoPage() {
         }
 
         setUpdatingId(id);
-        await api.post(`/agendamentos/${id}/status`, { status });
-        fetchAgendamentos();
-        setUpdatingId(null);
+        try {
+            await api.post(`/agendamentos/${id}/status`, { status });
+        } catch (error: any) {
+            // 409: outro guichê alterou o agendamento antes; a lista é recarregada com o status atual
+            setToast({
+                open: true,
+                message: error?.response?.data?.message ?? 'Erro ao atualizar o agendamento.',
+                severity: 'error',
+            });
+        } finally {
+            fetchAgendamentos();
+            setUpdatingId(null);
+        }
     };
 
     const fecharExpediente = async () => {
@@ -193,9 +331,19 @@ export default function AgendamentoPage() {
 
         try {
 
-            const response = await api.post(
-                "/agendamentos/fechar-expediente",
-                {},
+            // O fechamento roda em segundo plano: acompanha o job até o PDF ficar pronto
+            let { data: fechamento } = await api.post("/agendamentos/fechar-expediente");
+
+            while (fechamento.situacao !== "CONCLUIDO") {
+                if (fechamento.situacao === "FALHOU") {
+                    throw new Error(fechamento.erro);
+                }
+                await new Promise(resolve => setTimeout(resolve, 1000));
+                ({ data: fechamento } = await api.get(`/agendamentos/fechar-expediente/${fechamento.id}`));
+            }
+
+            const response = await api.get(
+                `/agendamentos/fechar-expediente/${fechamento.id}/relatorio`,
                 { responseType: "blob" }
             );
 
@@ -208,7 +356,7 @@ export default function AgendamentoPage() {
 
             link.setAttribute(
                 "download",
-                `relatorio-expediente-${new Date().toISOString().slice(0,10)}.pdf`
+                `relatorio-expediente-${fechamento.dia}.pdf`
             );
 
             document.body.appendChild(link);
@@ -233,12 +381,6 @@ export default function AgendamentoPage() {
 
     };
 
-    // ---------- Filtros ----------
-    const aguardando = agendamentos.filter(a => a.status === 'AGUARDANDO');
-    const emAtendimento = agendamentos.filter(a => a.status === 'EM_ATENDIMENTO');
-    const concluidos = agendamentos.filter(a => a.status === 'CONCLUIDO');
-    const cancelados = agendamentos.filter(a => a.status === 'CANCELADO');
-
     // ---------- Modal Style ----------
     const modalStyle = {
         position: 'absolute' as const,
@@ -407,11 +549,8 @@ export default function AgendamentoPage() {
 
             {/* KANBAN */}
             <Grid container spacing={3} sx={{ width: '100%', m: 0, mt: 2 }}>
-                {[{ title: 'Aguardando', data: aguardando },
-                    { title: 'Em Atendimento', data: emAtendimento },
-                    { title: 'Concluídos', data: concluidos },
-                    { title: 'Cancelados', data: cancelados }].map(col => (
-                    <Grid item xs={12} sm={6} md={3} key={col.title}> {/* ADICIONADO "item" AQUI */}
+                {COLUNAS.map(({ status, titulo }) => ({ status, titulo, ...colunas[status] })).map(col => (
+                    <Grid item xs={12} sm={6} md={3} key={col.status}> {/* ADICIONADO "item" AQUI */}
                         <Paper
                             elevation={2}
                             sx={{
@@ -424,7 +563,7 @@ export default function AgendamentoPage() {
                             }}
                         >
                             <Typography variant="subtitle1" fontWeight="bold" sx={{ mb: 1, px: 1 }}>
-                                {col.title} ({col.data.length})
+                                {col.titulo} ({contagem[col.status] ?? col.itens.length})
                             </Typography>
 
                             <Divider sx={{ mb: 2, borderBottomWidth: 2 }} />
@@ -436,7 +575,7 @@ export default function AgendamentoPage() {
                                 '&::-webkit-scrollbar': { width: '6px' },
                                 '&::-webkit-scrollbar-thumb': { backgroundColor: '#ccc', borderRadius: '10px' }
                             }}>
-                                {col.data.map(item => (
+                                {col.itens.map(item => (
                                     <Paper
                                         key={item.id}
                                         elevation={1}
@@ -522,6 +661,17 @@ export default function AgendamentoPage() {
                                         </Box>
                                     </Paper>
                                 ))}
+
+                                {col.cursor && (
+                                    <Button
+                                        fullWidth
+                                        size="small"
+                                        onClick={() => carregarMais(col.status)}
+                                        disabled={col.carregando}
+                                    >
+                                        {col.carregando ? <CircularProgress size={20} /> : 'Carregar mais'}
+                                    </Button>
+                                )}
                             </Box>
                         </Paper>
                     </Grid>
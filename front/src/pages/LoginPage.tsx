@@ -39,8 +39,14 @@ export default function LoginPage() {
             toast.success("Bem-vindo(a) ao SAI!");
             navigate('/agendamentos');
 
-        } catch (error) {
-            toast.error("Credenciais inválidas. Verifique usuário e senha.");
+        } catch (error: any) {
+            // 429/503: muitas tentativas ou servidor ocupado; a mensagem vem da API
+            const status = error?.response?.status;
+            if (status === 429 || status === 503) {
+                toast.error(error.response.data?.message ?? "Servidor ocupado. Tente novamente em instantes.");
+            } else {
+                toast.error("Credenciais inválidas. Verifique usuário e senha.");
+            }
         } finally {
             setLoading(false);
         }